@@ -0,0 +1,22 @@
+#!/usr/bin/env bash
+# Creates the schema in the benchmark H2 database, so timed runs can keep the fast profile's ddl-auto=validate.
+# Usage: create-benchmark-schema.sh <extracted-app.jar>
+set -euo pipefail
+
+JAR="$1"
+APP_DIR="$(cd "$(dirname "$JAR")" && pwd)"
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+DB_DIR="$APP_DIR/benchmark-db"
+
+rm -rf "$DB_DIR"
+mkdir -p "$DB_DIR"
+java -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh -jar "$JAR" \
+  --spring.profiles.active=fast \
+  "--spring.config.additional-location=file:$SCRIPT_DIR/benchmark-db.yml" \
+  "--benchmark.db.file=$DB_DIR/safi_task" \
+  --spring.jpa.hibernate.ddl-auto=create \
+  --spring.main.lazy-initialization=false \
+  > "$APP_DIR/benchmark-schema.log" 2>&1 || {
+    echo "Could not create the benchmark schema, see $APP_DIR/benchmark-schema.log" >&2
+    exit 1
+  }
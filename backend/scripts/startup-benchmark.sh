@@ -0,0 +1,57 @@
+#!/usr/bin/env bash
+# Measures time from JVM launch to the first successful GET /api/claims, with and without the AppCDS archive.
+# Runs use the fast profile, as processed by AOT, against the benchmark H2 database created beforehand.
+# Usage: startup-benchmark.sh <extracted-app.jar> [extra application args...]
+set -euo pipefail
+
+JAR="$1"
+shift
+APP_DIR="$(cd "$(dirname "$JAR")" && pwd)"
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+PORT="${BENCHMARK_PORT:-18080}"
+TIMEOUT_SECONDS="${BENCHMARK_TIMEOUT_SECONDS:-120}"
+APP_ARGS=(
+  "--server.port=$PORT"
+  "--spring.profiles.active=fast"
+  "--spring.config.additional-location=file:$SCRIPT_DIR/benchmark-db.yml"
+  "--benchmark.db.file=$APP_DIR/benchmark-db/safi_task"
+  "$@"
+)
+
+if [[ ! -f "$APP_DIR/benchmark-db/safi_task.mv.db" ]]; then
+  "$SCRIPT_DIR/create-benchmark-schema.sh" "$JAR"
+fi
+
+measure() {
+  local label="$1"
+  shift
+  local start end pid
+  start=$(date +%s%N)
+  java "$@" -Dspring.aot.enabled=true -jar "$JAR" "${APP_ARGS[@]}" > "$APP_DIR/startup-$label.log" 2>&1 &
+  pid=$!
+  trap 'kill $pid 2>/dev/null || true' EXIT
+  until curl -fs -o /dev/null "http://localhost:$PORT/api/claims"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "[$label] application exited before serving /api/claims, see $APP_DIR/startup-$label.log" >&2
+      exit 1
+    fi
+    if (( ($(date +%s%N) - start) / 1000000000 > TIMEOUT_SECONDS )); then
+      echo "[$label] no successful /api/claims response within ${TIMEOUT_SECONDS}s" >&2
+      kill "$pid"
+      exit 1
+    fi
+    sleep 0.05
+  done
+  end=$(date +%s%N)
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  trap - EXIT
+  echo "[$label] time to first /api/claims response: $(( (end - start) / 1000000 )) ms"
+}
+
+measure baseline
+if [[ -f "$APP_DIR/application.jsa" ]]; then
+  measure appcds "-XX:SharedArchiveFile=$APP_DIR/application.jsa"
+else
+  echo "No AppCDS archive at $APP_DIR/application.jsa, skipping the archived run"
+fi
@@ -0,0 +1,139 @@
+package com.safi.task_backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safi.task_backend.util.AdaptiveConcurrencyLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+@Component
+@ConditionalOnProperty(name = "admission.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    enum EndpointClass {
+        READ(32, 100),
+        WRITE(8, 300),
+        BULK(2, 2000);
+
+        private final int defaultLimit;
+        private final long defaultTargetLatencyMillis;
+
+        EndpointClass(int defaultLimit, long defaultTargetLatencyMillis) {
+            this.defaultLimit = defaultLimit;
+            this.defaultTargetLatencyMillis = defaultTargetLatencyMillis;
+        }
+    }
+
+    private static final Set<String> BULK_PATHS =
+            Set.of("/api/invoices/bulk-approve", "/api/invoices/pdf-batch", "/api/stock/reconcile");
+
+    private final ObjectMapper objectMapper;
+    private final long maxQueueWaitMillis;
+    private final long retryAfterSeconds;
+    private final Map<EndpointClass, AdaptiveConcurrencyLimit> limits = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> admitted = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> shed = new EnumMap<>(EndpointClass.class);
+
+    public AdmissionControlFilter(
+            AdmissionProperties properties, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.maxQueueWaitMillis = properties.maxQueueWaitMs();
+        this.retryAfterSeconds = properties.retryAfterSeconds();
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            AdmissionProperties.ClassLimits config = switch (endpointClass) {
+                case READ -> properties.read();
+                case WRITE -> properties.write();
+                case BULK -> properties.bulk();
+            };
+            int initialLimit = Objects.requireNonNullElse(config.initialLimit(), endpointClass.defaultLimit);
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(
+                    initialLimit,
+                    Objects.requireNonNullElse(config.minLimit(), 1),
+                    Objects.requireNonNullElse(config.maxLimit(), initialLimit * 4),
+                    Objects.requireNonNullElse(config.maxQueued(), initialLimit),
+                    Objects.requireNonNullElse(config.targetLatencyMs(), endpointClass.defaultTargetLatencyMillis));
+            limits.put(endpointClass, limit);
+
+            String tag = endpointClass.name().toLowerCase(Locale.ROOT);
+            admitted.put(endpointClass, Counter.builder("admission.requests")
+                    .tag("class", tag).tag("outcome", "admitted").register(meterRegistry));
+            shed.put(endpointClass, Counter.builder("admission.requests")
+                    .tag("class", tag).tag("outcome", "shed").register(meterRegistry));
+            Gauge.builder("admission.queued", limit, AdaptiveConcurrencyLimit::getQueued)
+                    .tag("class", tag).register(meterRegistry);
+            Gauge.builder("admission.in_flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .tag("class", tag).register(meterRegistry);
+            Gauge.builder("admission.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .tag("class", tag).register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/") || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = classify(request);
+        AdaptiveConcurrencyLimit limit = limits.get(endpointClass);
+        boolean acquired;
+        try {
+            acquired = limit.tryAcquire(maxQueueWaitMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            shed.get(endpointClass).increment();
+            reject(response);
+            return;
+        }
+        admitted.get(endpointClass).increment();
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limit.release(System.nanoTime() - start);
+        }
+    }
+
+    EndpointClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (BULK_PATHS.contains(path)) {
+            return EndpointClass.BULK;
+        }
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return EndpointClass.WRITE;
+        }
+        return EndpointClass.READ;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of(
+                "timestamp", LocalDateTime.now(), "message", "Server is busy, please retry"));
+    }
+}
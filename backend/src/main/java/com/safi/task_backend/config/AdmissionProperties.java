@@ -0,0 +1,17 @@
+package com.safi.task_backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "admission")
+public record AdmissionProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("50") long maxQueueWaitMs,
+        @DefaultValue("1") long retryAfterSeconds,
+        @DefaultValue ClassLimits read,
+        @DefaultValue ClassLimits write,
+        @DefaultValue ClassLimits bulk) {
+
+    public record ClassLimits(
+            Integer initialLimit, Integer minLimit, Integer maxLimit, Integer maxQueued, Long targetLatencyMs) {}
+}
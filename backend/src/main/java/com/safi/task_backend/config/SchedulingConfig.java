@@ -0,0 +1,37 @@
+package com.safi.task_backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+// Jobs that can run for minutes get their own pool, and lease renewal its own thread, so neither starves the other.
+@Configuration
+public class SchedulingConfig {
+
+    public static final String JOBS = "jobScheduler";
+    public static final String LEASES = "leaseScheduler";
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${scheduling.pool-size:4}") int poolSize) {
+        return scheduler("scheduling-", poolSize);
+    }
+
+    @Bean(JOBS)
+    public ThreadPoolTaskScheduler jobScheduler(@Value("${jobs.scheduler.pool-size:4}") int poolSize) {
+        return scheduler("jobs-", poolSize);
+    }
+
+    @Bean(LEASES)
+    public ThreadPoolTaskScheduler leaseScheduler() {
+        return scheduler("leases-", 1);
+    }
+
+    private static ThreadPoolTaskScheduler scheduler(String prefix, int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix(prefix);
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        return scheduler;
+    }
+}
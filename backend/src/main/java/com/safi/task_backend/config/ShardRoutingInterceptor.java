@@ -0,0 +1,52 @@
+package com.safi.task_backend.config;
+
+import com.safi.task_backend.service.ShardRouter;
+import com.safi.task_backend.util.ShardContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.Map;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Component
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardRoutingInterceptor implements HandlerInterceptor, WebMvcConfigurer {
+
+    private final ShardRouter shards;
+
+    public ShardRoutingInterceptor(ShardRouter shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this).addPathPatterns("/api/claims/**", "/api/invoices/**");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String id = variables != null ? variables.get("id") : null;
+        if (id != null) {
+            try {
+                ShardContext.set(shards.shardOf(Long.parseLong(id)));
+            } catch (NumberFormatException e) {
+            }
+        } else if ("POST".equals(request.getMethod()) && "/api/claims".equals(request.getRequestURI())) {
+            ShardContext.set(shards.shardForNewClaim(request.getHeader("Idempotency-Key")));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(
+            HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ShardContext.clear();
+    }
+}
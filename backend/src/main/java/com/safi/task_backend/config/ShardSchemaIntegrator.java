@@ -0,0 +1,74 @@
+package com.safi.task_backend.config;
+
+import com.safi.task_backend.util.ShardContext;
+import com.safi.task_backend.util.ShardKeys;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import javax.sql.DataSource;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.hbm2ddl.SchemaUpdate;
+import org.hibernate.tool.schema.TargetType;
+
+class ShardSchemaIntegrator implements Integrator {
+
+    static final List<String> SHARDED_TABLES =
+            List.of("expense_claims", "claim_items", "status_history", "invoices", "invoice_items");
+
+    private final List<DataSource> shards;
+    private final boolean schemaUpdate;
+
+    ShardSchemaIntegrator(List<DataSource> shards, boolean schemaUpdate) {
+        this.shards = shards;
+        this.schemaUpdate = schemaUpdate;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        for (int shard = ShardContext.HOME_SHARD + 1; shard < shards.size(); shard++) {
+            if (schemaUpdate) {
+                ShardContext.set(shard);
+                try {
+                    new SchemaUpdate()
+                            .setHaltOnError(true)
+                            .execute(EnumSet.of(TargetType.DATABASE), metadata, sessionFactory.getServiceRegistry());
+                } finally {
+                    ShardContext.clear();
+                }
+            }
+            alignIdentities(shard);
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {}
+
+    private void alignIdentities(int shard) {
+        long firstId = ShardKeys.firstId(shard);
+        try (Connection connection = shards.get(shard).getConnection();
+                Statement statement = connection.createStatement()) {
+            boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+            for (String table : SHARDED_TABLES) {
+                try (ResultSet max = statement.executeQuery("select coalesce(max(id), 0) from " + table)) {
+                    max.next();
+                    if (max.getLong(1) >= firstId) {
+                        continue;
+                    }
+                }
+                statement.execute(mysql
+                        ? "alter table " + table + " auto_increment = " + firstId
+                        : "alter table " + table + " alter column id restart with " + firstId);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not align identity ranges on shard " + shard, e);
+        }
+    }
+}
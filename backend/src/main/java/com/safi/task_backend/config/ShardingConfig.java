@@ -0,0 +1,45 @@
+package com.safi.task_backend.config;
+
+import java.util.List;
+import javax.sql.DataSource;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+    public ShardRoutingDataSource dataSource(ShardingProperties properties) {
+        if (properties.shards() == null || properties.shards().isEmpty()) {
+            throw new IllegalStateException("sharding.enabled is set but no sharding.shards are configured");
+        }
+        List<DataSource> shards = properties.shards().stream()
+                .map(shard -> (DataSource) DataSourceBuilder.create()
+                        .url(shard.url())
+                        .username(shard.username())
+                        .password(shard.password())
+                        .driverClassName(shard.driverClassName())
+                        .build())
+                .toList();
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+    public HibernatePropertiesCustomizer shardSchemaCustomizer(
+            ShardRoutingDataSource dataSource, ShardingProperties properties) {
+        IntegratorProvider integrators =
+                () -> List.of(new ShardSchemaIntegrator(dataSource.getShards(), properties.schemaUpdate()));
+        return hibernateProperties -> hibernateProperties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER, integrators);
+    }
+}
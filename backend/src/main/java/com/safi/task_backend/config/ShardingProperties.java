@@ -0,0 +1,14 @@
+package com.safi.task_backend.config;
+
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "sharding")
+public record ShardingProperties(boolean enabled, boolean schemaUpdate, int scatterThreads, List<Shard> shards) {
+
+    public record Shard(String url, String username, String password, String driverClassName) {}
+
+    public int shardCount() {
+        return enabled && shards != null && !shards.isEmpty() ? shards.size() : 1;
+    }
+}
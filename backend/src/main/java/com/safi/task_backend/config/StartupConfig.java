@@ -0,0 +1,23 @@
+package com.safi.task_backend.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+
+@Configuration
+public class StartupConfig {
+
+    // With spring.main.lazy-initialization, beans that own @Scheduled jobs would never be created, so keep them eager.
+    @Bean
+    static LazyInitializationExcludeFilter eagerScheduledBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && !MethodIntrospector.selectMethods(
+                                beanType,
+                                (MethodIntrospector.MetadataLookup<Scheduled>) method ->
+                                        AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class))
+                        .isEmpty();
+    }
+}
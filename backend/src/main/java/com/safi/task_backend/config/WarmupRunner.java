@@ -0,0 +1,171 @@
+package com.safi.task_backend.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safi.task_backend.dto.ClaimItemDto;
+import com.safi.task_backend.dto.ClaimTransitionRequest;
+import com.safi.task_backend.dto.ExpenseClaimRequest;
+import com.safi.task_backend.dto.ExpenseClaimResponse;
+import com.safi.task_backend.model.enums.ClaimStatus;
+import com.safi.task_backend.service.DashboardService;
+import com.safi.task_backend.service.ExpenseClaimService;
+import com.safi.task_backend.service.InvoiceService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// registered unconditionally and checked at run time, since conditions are fixed when the AOT context is built
+@Component
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+    private static final int WINDOW = 50;
+
+    private final ExpenseClaimService claimService;
+    private final InvoiceService invoiceService;
+    private final DashboardService dashboardService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate rollbackTransaction;
+    private final Environment environment;
+    private final boolean enabled;
+    private final Duration maxDuration;
+    private final int minIterations;
+    private final int maxIterations;
+    private final double tolerance;
+    private final Timer iterationTimer;
+    private final AtomicLong iterations = new AtomicLong();
+    private final AtomicLong convergedAtIteration = new AtomicLong(-1);
+    private final AtomicLong elapsedMillis = new AtomicLong();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    public WarmupRunner(
+            ExpenseClaimService claimService,
+            InvoiceService invoiceService,
+            DashboardService dashboardService,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${warmup.enabled:false}") boolean enabled,
+            @Value("${warmup.max-duration:PT60S}") Duration maxDuration,
+            @Value("${warmup.min-iterations:200}") int minIterations,
+            @Value("${warmup.max-iterations:5000}") int maxIterations,
+            @Value("${warmup.convergence-tolerance:0.05}") double tolerance) {
+        this.claimService = claimService;
+        this.invoiceService = invoiceService;
+        this.dashboardService = dashboardService;
+        this.objectMapper = objectMapper;
+        this.rollbackTransaction = new TransactionTemplate(transactionManager);
+        this.environment = environment;
+        this.enabled = enabled;
+        this.maxDuration = maxDuration;
+        this.minIterations = minIterations;
+        this.maxIterations = maxIterations;
+        this.tolerance = tolerance;
+        this.iterationTimer = Timer.builder("warmup.iteration").register(meterRegistry);
+        Gauge.builder("warmup.iterations", iterations, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("warmup.converged.iteration", convergedAtIteration, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("warmup.elapsed.ms", elapsedMillis, AtomicLong::get).register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        double previousWindow = -1;
+        long windowNanos = 0;
+        while (iterations.get() < maxIterations && System.nanoTime() < deadline) {
+            long iterationStart = System.nanoTime();
+            try {
+                iterate();
+            } catch (RuntimeException e) {
+                log.warn("Warm-up iteration failed, stopping warm-up", e);
+                break;
+            }
+            long took = System.nanoTime() - iterationStart;
+            iterationTimer.record(Duration.ofNanos(took));
+            windowNanos += took;
+            long count = iterations.incrementAndGet();
+            elapsedMillis.set(Duration.ofNanos(System.nanoTime() - start).toMillis());
+            if (count % WINDOW == 0) {
+                double window = windowNanos / (double) WINDOW;
+                windowNanos = 0;
+                if (count >= minIterations && previousWindow > 0
+                        && Math.abs(window - previousWindow) / previousWindow < tolerance) {
+                    convergedAtIteration.set(count);
+                    break;
+                }
+                previousWindow = window;
+            }
+        }
+        log.info("Warm-up finished after {} iterations in {} ms (converged: {})",
+                iterations.get(), elapsedMillis.get(), convergedAtIteration.get() >= 0);
+    }
+
+    private void iterate() {
+        rollbackTransaction.executeWithoutResult(status -> {
+            ExpenseClaimRequest request = new ExpenseClaimRequest(
+                    "Warm-up", "Synthetic warm-up claim", List.of(
+                            new ClaimItemDto(null, "warm-up-item", 2, new BigDecimal("12.50")),
+                            new ClaimItemDto(null, "warm-up-extra", 1, new BigDecimal("3.00"))));
+            ExpenseClaimResponse created = claimService.createClaim(request, null);
+            serialize(claimService.updateClaim(created.id(), request, null));
+            serialize(claimService.transition(
+                    created.id(), new ClaimTransitionRequest(ClaimStatus.SUBMITTED, "warm-up"), null));
+            serialize(claimService.getClaim(created.id()));
+            serialize(claimService.history(created.id()));
+            serialize(claimService.listClaims(0, 20));
+            serialize(invoiceService.list(0, 20));
+            serialize(dashboardService.getMetrics());
+            status.setRollbackOnly();
+        });
+        get("/api/claims?page=0&size=20");
+        get("/api/dashboard/metrics");
+    }
+
+    private void serialize(Object value) {
+        try {
+            objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Warm-up serialization failed", e);
+        }
+    }
+
+    private void get(String path) {
+        String port = environment.getProperty("local.server.port");
+        if (port == null) {
+            return;
+        }
+        try {
+            httpClient.send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            throw new IllegalStateException("Warm-up request failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Warm-up interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.safi.task_backend.controller;
+
+import com.safi.task_backend.dto.AnalyticsBackfillResponse;
+import com.safi.task_backend.dto.ClaimRollupBucket;
+import com.safi.task_backend.dto.InvoiceRollupBucket;
+import com.safi.task_backend.model.enums.RollupGranularity;
+import com.safi.task_backend.service.AnalyticsService;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService;
+
+    public AnalyticsController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    @GetMapping("/claims")
+    public ResponseEntity<List<ClaimRollupBucket>> claims(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") RollupGranularity granularity) {
+        return ResponseEntity.ok(analyticsService.claimRollups(from, to, granularity));
+    }
+
+    @GetMapping("/invoices")
+    public ResponseEntity<List<InvoiceRollupBucket>> invoices(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") RollupGranularity granularity) {
+        return ResponseEntity.ok(analyticsService.invoiceRollups(from, to, granularity));
+    }
+
+    @PostMapping("/backfill")
+    public ResponseEntity<AnalyticsBackfillResponse> backfill() {
+        return ResponseEntity.ok(analyticsService.backfill());
+    }
+}
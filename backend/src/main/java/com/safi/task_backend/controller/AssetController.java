@@ -0,0 +1,39 @@
+package com.safi.task_backend.controller;
+
+import com.safi.task_backend.service.PdfImageAssets;
+import java.time.Duration;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+@RestController
+@RequestMapping("/api/assets")
+public class AssetController {
+
+    private final PdfImageAssets imageAssets;
+
+    public AssetController(PdfImageAssets imageAssets) {
+        this.imageAssets = imageAssets;
+    }
+
+    @GetMapping("/images/{hash}")
+    public ResponseEntity<byte[]> image(@PathVariable String hash, WebRequest request) {
+        byte[] image = imageAssets.find(hash).orElse(null);
+        if (image == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(hash)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(hash)
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                .contentType(MediaType.IMAGE_PNG)
+                .body(image);
+    }
+}
@@ -1,63 +1,150 @@
 package com.safi.task_backend.controller;
 
+import com.safi.task_backend.dto.ClaimSummaryResponse;
 import com.safi.task_backend.dto.ClaimTransitionRequest;
 import com.safi.task_backend.dto.ExpenseClaimRequest;
 import com.safi.task_backend.dto.ExpenseClaimResponse;
+import com.safi.task_backend.dto.HistoryCompactionResponse;
 import com.safi.task_backend.dto.PageResponse;
+import com.safi.task_backend.dto.ReadModelRebuildResponse;
 import com.safi.task_backend.dto.StatusHistoryResponse;
+import com.safi.task_backend.model.enums.ClaimStatus;
+import com.safi.task_backend.model.enums.InvoiceStatus;
+import com.safi.task_backend.service.ClaimReadModelService;
 import com.safi.task_backend.service.ExpenseClaimService;
+import com.safi.task_backend.service.HistoryCompactionService;
+import com.safi.task_backend.service.IdempotencyService;
+import com.safi.task_backend.util.ETags;
+import com.safi.task_backend.util.FieldSelection;
 import jakarta.validation.Valid;
 import java.util.List;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/claims")
 public class ExpenseClaimController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String TENANT = "X-Tenant";
+
     private final ExpenseClaimService claimService;
+    private final ClaimReadModelService readModelService;
+    private final IdempotencyService idempotencyService;
+    private final HistoryCompactionService historyCompactionService;
 
-    public ExpenseClaimController(ExpenseClaimService claimService) {
+    public ExpenseClaimController(
+            ExpenseClaimService claimService,
+            ClaimReadModelService readModelService,
+            IdempotencyService idempotencyService,
+            HistoryCompactionService historyCompactionService) {
         this.claimService = claimService;
+        this.readModelService = readModelService;
+        this.idempotencyService = idempotencyService;
+        this.historyCompactionService = historyCompactionService;
     }
 
     @PostMapping
-    public ResponseEntity<ExpenseClaimResponse> create(@Valid @RequestBody ExpenseClaimRequest request) {
-        return ResponseEntity.ok(claimService.createClaim(request));
+    public ResponseEntity<ExpenseClaimResponse> create(
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestHeader(value = TENANT, required = false) String tenant,
+            @Valid @RequestBody ExpenseClaimRequest request) {
+        String scope = tenant == null ? "claims:create" : "claims:create:" + tenant;
+        return ResponseEntity.ok(idempotencyService.execute(
+                scope, idempotencyKey, request, ExpenseClaimResponse.class,
+                () -> claimService.createClaim(request, tenant)));
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<ExpenseClaimResponse> update(
-            @PathVariable Long id, @Valid @RequestBody ExpenseClaimRequest request) {
-        return ResponseEntity.ok(claimService.updateClaim(id, request));
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @Valid @RequestBody ExpenseClaimRequest request) {
+        ExpenseClaimResponse claim = claimService.updateClaim(id, request, ifMatch);
+        return tagged(claim, accept);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ExpenseClaimResponse> get(@PathVariable Long id) {
-        return ResponseEntity.ok(claimService.getClaim(id));
+    public ResponseEntity<ExpenseClaimResponse> get(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(ETags.forRepresentation(claimService.etag(id), accept))) {
+            return null;
+        }
+        return tagged(claimService.getClaim(id), accept);
     }
 
     @GetMapping
-    public ResponseEntity<PageResponse<ExpenseClaimResponse>> list(
-            @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size) {
-        return ResponseEntity.ok(claimService.listClaims(page, size));
+    public ResponseEntity<PageResponse<?>> list(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String view,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
+        FieldSelection selection = claimService.listFields(fields, view);
+        String etag = ETags.weak(ETags.forRepresentation(claimService.listETag(page, size, selection), accept));
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(selection == null
+                ? claimService.listClaims(page, size)
+                : claimService.listClaims(page, size, selection));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<PageResponse<ClaimSummaryResponse>> search(
+            @RequestParam(required = false) ClaimStatus status,
+            @RequestParam(required = false) String tenant,
+            @RequestParam(required = false) InvoiceStatus invoiceStatus,
+            @RequestParam(required = false) String claimant,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(readModelService.search(status, tenant, invoiceStatus, claimant, page, size));
+    }
+
+    @PostMapping("/read-model/rebuild")
+    public ResponseEntity<ReadModelRebuildResponse> rebuildReadModel() {
+        return ResponseEntity.ok(readModelService.rebuild());
+    }
+
+    @PostMapping("/history/compact")
+    public ResponseEntity<HistoryCompactionResponse> compactHistory() {
+        return ResponseEntity.ok(historyCompactionService.compact());
     }
 
     @PostMapping("/{id}/transition")
     public ResponseEntity<ExpenseClaimResponse> transition(
-            @PathVariable Long id, @Valid @RequestBody ClaimTransitionRequest request) {
-        return ResponseEntity.ok(claimService.transition(id, request));
+            @PathVariable Long id,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @Valid @RequestBody ClaimTransitionRequest request) {
+        ExpenseClaimResponse claim = claimService.transition(id, request, ifMatch, idempotencyKey);
+        return tagged(claim, accept);
     }
 
     @GetMapping("/{id}/history")
     public ResponseEntity<List<StatusHistoryResponse>> history(@PathVariable Long id) {
         return ResponseEntity.ok(claimService.history(id));
     }
+
+    private ResponseEntity<ExpenseClaimResponse> tagged(ExpenseClaimResponse claim, String accept) {
+        return ResponseEntity.ok()
+                .eTag(ETags.forRepresentation(claimService.etag(claim), accept))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(claim);
+    }
 }
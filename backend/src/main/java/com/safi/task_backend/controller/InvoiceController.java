@@ -1,36 +1,77 @@
 package com.safi.task_backend.controller;
 
-import com.safi.task_backend.dto.InvoicePdfData;
+import com.safi.task_backend.dto.BulkApprovalRequest;
+import com.safi.task_backend.dto.BulkApprovalResponse;
+import com.safi.task_backend.dto.InvoicePdfBatchRequest;
+import com.safi.task_backend.dto.InvoicePdfPayload;
 import com.safi.task_backend.dto.InvoiceResponse;
 import com.safi.task_backend.dto.PageResponse;
+import com.safi.task_backend.service.InvoicePdfService;
 import com.safi.task_backend.service.InvoiceService;
+import com.safi.task_backend.util.ETags;
+import com.safi.task_backend.util.FieldSelection;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.Map;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/invoices")
 public class InvoiceController {
 
     private final InvoiceService invoiceService;
+    private final InvoicePdfService pdfService;
 
-    public InvoiceController(InvoiceService invoiceService) {
+    public InvoiceController(InvoiceService invoiceService, InvoicePdfService pdfService) {
         this.invoiceService = invoiceService;
+        this.pdfService = pdfService;
     }
 
     @GetMapping
-    public ResponseEntity<PageResponse<InvoiceResponse>> list(
-            @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size) {
-        return ResponseEntity.ok(invoiceService.list(page, size));
+    public ResponseEntity<PageResponse<?>> list(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String view,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
+        FieldSelection selection = invoiceService.listFields(fields, view);
+        String etag = ETags.weak(ETags.forRepresentation(invoiceService.listETag(page, size, selection), accept));
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(selection == null
+                ? invoiceService.list(page, size)
+                : invoiceService.list(page, size, selection));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<InvoiceResponse> get(@PathVariable Long id) {
-        return ResponseEntity.ok(invoiceService.getInvoice(id));
+    public ResponseEntity<InvoiceResponse> get(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(ETags.forRepresentation(invoiceService.etag(id), accept))) {
+            return null;
+        }
+        InvoiceResponse invoice = invoiceService.getInvoice(id);
+        return ResponseEntity.ok()
+                .eTag(ETags.forRepresentation(invoiceService.etag(invoice), accept))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(invoice);
     }
 
     @PostMapping("/{id}/approve")
@@ -38,8 +79,55 @@ public class InvoiceController {
         return ResponseEntity.ok(invoiceService.toResponse(invoiceService.approve(id)));
     }
 
+    @PostMapping("/bulk-approve")
+    public ResponseEntity<BulkApprovalResponse> approveBulk(@Valid @RequestBody BulkApprovalRequest request) {
+        return ResponseEntity.ok(invoiceService.approveBulk(request.invoiceIds()));
+    }
+
     @GetMapping("/{id}/pdf-data")
-    public ResponseEntity<InvoicePdfData> pdf(@PathVariable Long id) {
-        return ResponseEntity.ok(invoiceService.getPdfData(id));
+    public ResponseEntity<?> pdf(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
+        InvoicePdfPayload payload = invoiceService.getPdfData(id);
+        boolean cbor = ETags.acceptsCbor(accept);
+        String etag = cbor ? payload.etag() + "-cbor" : payload.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .cacheControl(CacheControl.noCache());
+        if (cbor) {
+            return response.body(payload.data());
+        }
+        return response.contentType(MediaType.APPLICATION_JSON).body(payload.json());
+    }
+
+    @GetMapping("/{id}/pdf")
+    public void renderPdf(@PathVariable Long id, HttpServletResponse response) throws IOException {
+        InvoicePdfPayload payload = pdfService.payload(id);
+        byte[] pdf = pdfService.render(id, payload);
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setContentLength(pdf.length);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(payload.data().invoiceNumber() + ".pdf")
+                .build()
+                .toString());
+        response.getOutputStream().write(pdf);
+    }
+
+    @PostMapping("/pdf-batch")
+    public void renderPdfBatch(@Valid @RequestBody InvoicePdfBatchRequest request, HttpServletResponse response)
+            throws IOException {
+        // loaded before the headers go out, so an unknown id still gets an error response
+        Map<Long, InvoicePdfPayload> payloads = pdfService.batchPayloads(request.invoiceIds());
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("invoices.zip")
+                .build()
+                .toString());
+        pdfService.writeZip(payloads, response.getOutputStream());
     }
 }
@@ -0,0 +1,73 @@
+package com.safi.task_backend.controller;
+
+import com.safi.task_backend.dto.DashboardMetrics;
+import com.safi.task_backend.dto.ExpenseClaimResponse;
+import com.safi.task_backend.dto.InvoiceResponse;
+import com.safi.task_backend.dto.PageResponse;
+import com.safi.task_backend.dto.StockSummaryResponse;
+import com.safi.task_backend.service.ReactiveReadService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/reactive")
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "false", matchIfMissing = true)
+public class ReactiveReadController {
+
+    private final ReactiveReadService readService;
+
+    public ReactiveReadController(ReactiveReadService readService) {
+        this.readService = readService;
+    }
+
+    @GetMapping("/claims")
+    public Mono<PageResponse<ExpenseClaimResponse>> listClaims(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return readService.listClaims(page, size);
+    }
+
+    @GetMapping("/claims/{id}")
+    public Mono<ExpenseClaimResponse> getClaim(@PathVariable Long id) {
+        return readService.getClaim(id);
+    }
+
+    @GetMapping(value = "/claims/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ExpenseClaimResponse> streamClaims() {
+        return readService.streamClaims();
+    }
+
+    @GetMapping("/invoices")
+    public Mono<PageResponse<InvoiceResponse>> listInvoices(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return readService.listInvoices(page, size);
+    }
+
+    @GetMapping("/invoices/{id}")
+    public Mono<InvoiceResponse> getInvoice(@PathVariable Long id) {
+        return readService.getInvoice(id);
+    }
+
+    @GetMapping(value = "/invoices/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<InvoiceResponse> streamInvoices() {
+        return readService.streamInvoices();
+    }
+
+    @GetMapping("/stock")
+    public Flux<StockSummaryResponse> stock() {
+        return readService.stock();
+    }
+
+    @GetMapping("/dashboard")
+    public Mono<DashboardMetrics> dashboard() {
+        return readService.dashboard();
+    }
+}
@@ -1,7 +1,9 @@
 package com.safi.task_backend.controller;
 
+import com.safi.task_backend.service.PreconditionFailedException;
 import java.time.LocalDateTime;
 import java.util.Map;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -27,6 +29,19 @@ public class RestExceptionHandler {
                 .body(Map.of("timestamp", LocalDateTime.now(), "message", ex.getMessage()));
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Map<String, Object>> handlePrecondition(PreconditionFailedException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .eTag(ex.getCurrentETag())
+                .body(Map.of("timestamp", LocalDateTime.now(), "message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleConcurrentUpdate(ConcurrencyFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("timestamp", LocalDateTime.now(), "message", "The resource was modified concurrently"));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleOther(Exception ex) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
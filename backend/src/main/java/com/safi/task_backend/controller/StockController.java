@@ -1,28 +1,50 @@
 package com.safi.task_backend.controller;
 
+import com.safi.task_backend.dto.PageResponse;
+import com.safi.task_backend.dto.StockMovementResponse;
+import com.safi.task_backend.dto.StockReconciliationResponse;
 import com.safi.task_backend.dto.StockSummaryResponse;
-import com.safi.task_backend.repository.StockSummaryRepository;
+import com.safi.task_backend.service.StockReconciliationService;
+import com.safi.task_backend.service.StockService;
+import java.time.LocalDateTime;
 import java.util.List;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/api/stock")
 public class StockController {
 
-    private final StockSummaryRepository stockSummaryRepository;
+    private final StockService stockService;
+    private final StockReconciliationService reconciliationService;
 
-    public StockController(StockSummaryRepository stockSummaryRepository) {
-        this.stockSummaryRepository = stockSummaryRepository;
+    public StockController(StockService stockService, StockReconciliationService reconciliationService) {
+        this.stockService = stockService;
+        this.reconciliationService = reconciliationService;
     }
 
     @GetMapping
-    public ResponseEntity<List<StockSummaryResponse>> list() {
-        List<StockSummaryResponse> payload = stockSummaryRepository.findAll().stream()
-                .map(entry -> new StockSummaryResponse(entry.getId(), entry.getItemName(), entry.getTotalQuantity()))
-                .toList();
-        return ResponseEntity.ok(payload);
+    public ResponseEntity<List<StockSummaryResponse>> list(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        return ResponseEntity.ok(asOf != null ? stockService.balancesAsOf(asOf) : stockService.currentBalances());
+    }
+
+    @GetMapping("/{id}/movements")
+    public ResponseEntity<PageResponse<StockMovementResponse>> movements(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(stockService.movements(id, page, size));
+    }
+
+    @PostMapping("/reconcile")
+    public ResponseEntity<StockReconciliationResponse> reconcile(@RequestParam(defaultValue = "false") boolean repair) {
+        return ResponseEntity.ok(reconciliationService.reconcile(repair));
     }
 }
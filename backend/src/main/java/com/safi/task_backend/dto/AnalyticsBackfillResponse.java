@@ -0,0 +1,3 @@
+package com.safi.task_backend.dto;
+
+public record AnalyticsBackfillResponse(long claimsScanned, long invoicesScanned, int claimBuckets, int invoiceBuckets) {}
@@ -0,0 +1,50 @@
+package com.safi.task_backend.dto;
+
+import com.safi.task_backend.model.enums.ClaimStatus;
+import com.safi.task_backend.model.enums.InvoiceStatus;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record ArchivedClaim(
+        Long id,
+        Long version,
+        String referenceNumber,
+        String claimantName,
+        String description,
+        ClaimStatus status,
+        String tenant,
+        BigDecimal totalAmount,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        List<Item> items,
+        ArchivedInvoice invoice,
+        List<HistoryEntry> history) {
+
+    public record Item(Long id, String itemName, Integer quantity, BigDecimal unitPrice) {}
+
+    public record ArchivedInvoice(
+            Long id,
+            Long version,
+            String invoiceNumber,
+            InvoiceStatus status,
+            LocalDateTime createdAt,
+            LocalDateTime updatedAt,
+            LocalDateTime approvedAt,
+            BigDecimal subtotal,
+            BigDecimal tax,
+            BigDecimal total,
+            boolean stockApplied,
+            List<Line> items) {}
+
+    public record Line(Long id, String itemName, Integer quantity, BigDecimal unitPrice, BigDecimal lineTotal) {}
+
+    public record HistoryEntry(
+            Long id,
+            ClaimStatus fromStatus,
+            ClaimStatus toStatus,
+            String comment,
+            LocalDateTime createdAt,
+            String snapshot,
+            String journalId) {}
+}
@@ -0,0 +1,6 @@
+package com.safi.task_backend.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+public record BulkApprovalRequest(@NotEmpty(message = "At least one invoice id is required") List<Long> invoiceIds) {}
@@ -0,0 +1,14 @@
+package com.safi.task_backend.dto;
+
+import java.util.List;
+
+public record BulkApprovalResponse(int approved, int alreadyApproved, int notFound, List<InvoiceOutcome> outcomes) {
+
+    public record InvoiceOutcome(Long invoiceId, Result result) {}
+
+    public enum Result {
+        APPROVED,
+        ALREADY_APPROVED,
+        NOT_FOUND
+    }
+}
@@ -0,0 +1,7 @@
+package com.safi.task_backend.dto;
+
+import com.safi.task_backend.model.enums.ClaimStatus;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record ClaimRollupBucket(LocalDate periodStart, ClaimStatus status, long claimCount, BigDecimal totalValue) {}
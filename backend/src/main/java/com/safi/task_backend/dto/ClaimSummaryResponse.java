@@ -0,0 +1,19 @@
+package com.safi.task_backend.dto;
+
+import com.safi.task_backend.model.enums.ClaimStatus;
+import com.safi.task_backend.model.enums.InvoiceStatus;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record ClaimSummaryResponse(
+        Long claimId,
+        String referenceNumber,
+        String claimantName,
+        ClaimStatus status,
+        String tenant,
+        BigDecimal totalAmount,
+        int itemCount,
+        Long invoiceId,
+        InvoiceStatus invoiceStatus,
+        LocalDateTime createdAt,
+        LocalDateTime lastTransitionAt) {}
@@ -17,4 +17,6 @@ public record ExpenseClaimResponse(
         LocalDateTime updatedAt,
         List<ClaimItemDto> items,
         Set<ClaimStatus> allowedTransitions,
-        Long invoiceId) {}
+        Long invoiceId,
+        String tenant,
+        Long version) {}
@@ -0,0 +1,3 @@
+package com.safi.task_backend.dto;
+
+public record HistoryCompactionResponse(long snapshotsStripped, long snapshotBytesReclaimed, long rowsMoved) {}
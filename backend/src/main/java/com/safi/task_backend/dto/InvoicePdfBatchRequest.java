@@ -0,0 +1,11 @@
+package com.safi.task_backend.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public record InvoicePdfBatchRequest(
+        @NotEmpty(message = "At least one invoice id is required")
+        @Size(max = 500, message = "At most 500 invoices can be downloaded at once")
+        List<@NotNull(message = "Invoice ids must not be null") Long> invoiceIds) {}
@@ -14,8 +14,8 @@ public record InvoicePdfData(
         BigDecimal tax,
         BigDecimal total,
         boolean managerApproved,
-        String headerImage,
-        String footerImage) {
+        String headerImageUrl,
+        String footerImageUrl) {
 
     public record InvoiceLine(String itemName, Integer quantity, BigDecimal unitPrice, BigDecimal lineTotal) {}
 }
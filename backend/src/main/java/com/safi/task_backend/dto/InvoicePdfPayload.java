@@ -0,0 +1,3 @@
+package com.safi.task_backend.dto;
+
+public record InvoicePdfPayload(InvoicePdfData data, byte[] json, String etag) {}
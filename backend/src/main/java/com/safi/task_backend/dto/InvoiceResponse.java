@@ -16,7 +16,8 @@ public record InvoiceResponse(
         BigDecimal tax,
         BigDecimal total,
         boolean stockApplied,
-        List<InvoiceRow> items) {
+        List<InvoiceRow> items,
+        Long version) {
 
     public record InvoiceRow(String itemName, Integer quantity, BigDecimal unitPrice, BigDecimal lineTotal) {}
 }
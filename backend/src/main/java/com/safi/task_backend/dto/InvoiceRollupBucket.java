@@ -0,0 +1,13 @@
+package com.safi.task_backend.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record InvoiceRollupBucket(
+        LocalDate periodStart,
+        long invoiceCount,
+        BigDecimal subtotal,
+        BigDecimal tax,
+        BigDecimal total,
+        long approvedCount,
+        double averageApprovalLeadHours) {}
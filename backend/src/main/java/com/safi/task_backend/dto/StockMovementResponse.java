@@ -0,0 +1,7 @@
+package com.safi.task_backend.dto;
+
+import com.safi.task_backend.model.enums.StockMovementType;
+import java.time.LocalDateTime;
+
+public record StockMovementResponse(
+        Long id, Long invoiceId, long quantity, StockMovementType type, LocalDateTime createdAt) {}
@@ -0,0 +1,9 @@
+package com.safi.task_backend.dto;
+
+import java.util.List;
+
+public record StockReconciliationResponse(
+        long invoiceLinesScanned, int itemsChecked, boolean repaired, long durationMillis, List<Drift> drift) {
+
+    public record Drift(String itemName, long expected, long ledger, long difference, long adjusted) {}
+}
@@ -0,0 +1,142 @@
+package com.safi.task_backend.model;
+
+import com.safi.task_backend.model.enums.ClaimStatus;
+import com.safi.task_backend.model.enums.InvoiceStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(
+        name = "claim_read_model",
+        indexes = {
+            @Index(name = "idx_claim_read_status_created", columnList = "status, createdAt"),
+            @Index(name = "idx_claim_read_created", columnList = "createdAt"),
+            @Index(name = "idx_claim_read_claimant", columnList = "claimantName"),
+            @Index(name = "idx_claim_read_invoice_status", columnList = "invoiceStatus"),
+            @Index(name = "idx_claim_read_invoice", columnList = "invoiceId")
+        })
+public class ClaimReadModel {
+
+    @Id
+    private Long claimId;
+
+    @Column(nullable = false)
+    private String referenceNumber;
+
+    @Column(nullable = false)
+    private String claimantName;
+
+    @Column(nullable = false)
+    private ClaimStatus status;
+
+    @Column(length = 64)
+    private String tenant;
+
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    private int itemCount;
+
+    private Long invoiceId;
+
+    @Enumerated(EnumType.STRING)
+    private InvoiceStatus invoiceStatus;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime lastTransitionAt;
+
+    public Long getClaimId() {
+        return claimId;
+    }
+
+    public void setClaimId(Long claimId) {
+        this.claimId = claimId;
+    }
+
+    public String getReferenceNumber() {
+        return referenceNumber;
+    }
+
+    public void setReferenceNumber(String referenceNumber) {
+        this.referenceNumber = referenceNumber;
+    }
+
+    public String getClaimantName() {
+        return claimantName;
+    }
+
+    public void setClaimantName(String claimantName) {
+        this.claimantName = claimantName;
+    }
+
+    public ClaimStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ClaimStatus status) {
+        this.status = status;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public Long getInvoiceId() {
+        return invoiceId;
+    }
+
+    public void setInvoiceId(Long invoiceId) {
+        this.invoiceId = invoiceId;
+    }
+
+    public InvoiceStatus getInvoiceStatus() {
+        return invoiceStatus;
+    }
+
+    public void setInvoiceStatus(InvoiceStatus invoiceStatus) {
+        this.invoiceStatus = invoiceStatus;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getLastTransitionAt() {
+        return lastTransitionAt;
+    }
+
+    public void setLastTransitionAt(LocalDateTime lastTransitionAt) {
+        this.lastTransitionAt = lastTransitionAt;
+    }
+}
@@ -0,0 +1,73 @@
+package com.safi.task_backend.model;
+
+import com.safi.task_backend.model.enums.ClaimStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(
+        name = "claim_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_claim_rollup_bucket", columnNames = {"bucketDate", "status"}))
+public class ClaimRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate bucketDate;
+
+    @Column(nullable = false)
+    private ClaimStatus status;
+
+    private long claimCount;
+
+    private BigDecimal totalValue = BigDecimal.ZERO;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getBucketDate() {
+        return bucketDate;
+    }
+
+    public void setBucketDate(LocalDate bucketDate) {
+        this.bucketDate = bucketDate;
+    }
+
+    public ClaimStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ClaimStatus status) {
+        this.status = status;
+    }
+
+    public long getClaimCount() {
+        return claimCount;
+    }
+
+    public void setClaimCount(long claimCount) {
+        this.claimCount = claimCount;
+    }
+
+    public BigDecimal getTotalValue() {
+        return totalValue;
+    }
+
+    public void setTotalValue(BigDecimal totalValue) {
+        this.totalValue = totalValue;
+    }
+}
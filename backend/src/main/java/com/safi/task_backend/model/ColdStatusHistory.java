@@ -0,0 +1,128 @@
+package com.safi.task_backend.model;
+
+import com.safi.task_backend.model.enums.ClaimStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@IdClass(ColdStatusHistory.Key.class)
+@Table(
+        name = "status_history_cold",
+        indexes = @Index(name = "idx_status_history_cold_claim", columnList = "claimId, createdAt"))
+public class ColdStatusHistory {
+
+    @Id
+    private Long id;
+
+    @Id
+    private int partitionMonth;
+
+    @Column(nullable = false)
+    private Long claimId;
+
+    private ClaimStatus fromStatus;
+
+    private ClaimStatus toStatus;
+
+    @Column(length = 2000)
+    private String comment;
+
+    private LocalDateTime createdAt;
+
+    @Column(length = 36)
+    private String journalId;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public int getPartitionMonth() {
+        return partitionMonth;
+    }
+
+    public void setPartitionMonth(int partitionMonth) {
+        this.partitionMonth = partitionMonth;
+    }
+
+    public Long getClaimId() {
+        return claimId;
+    }
+
+    public void setClaimId(Long claimId) {
+        this.claimId = claimId;
+    }
+
+    public ClaimStatus getFromStatus() {
+        return fromStatus;
+    }
+
+    public void setFromStatus(ClaimStatus fromStatus) {
+        this.fromStatus = fromStatus;
+    }
+
+    public ClaimStatus getToStatus() {
+        return toStatus;
+    }
+
+    public void setToStatus(ClaimStatus toStatus) {
+        this.toStatus = toStatus;
+    }
+
+    public String getComment() {
+        return comment;
+    }
+
+    public void setComment(String comment) {
+        this.comment = comment;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getJournalId() {
+        return journalId;
+    }
+
+    public void setJournalId(String journalId) {
+        this.journalId = journalId;
+    }
+
+    public static class Key implements Serializable {
+
+        private Long id;
+        private int partitionMonth;
+
+        public Key() {}
+
+        public Key(Long id, int partitionMonth) {
+            this.id = id;
+            this.partitionMonth = partitionMonth;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && Objects.equals(id, key.id) && partitionMonth == key.partitionMonth;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, partitionMonth);
+        }
+    }
+}
@@ -4,18 +4,18 @@ import com.safi.task_backend.model.enums.ClaimStatus;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.EnumType;
-import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name = "expense_claims")
@@ -25,6 +25,11 @@ public class ExpenseClaim {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // The default lets schema update add the column to tables that already hold rows.
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
     @Column(nullable = false, unique = true)
     private String referenceNumber;
 
@@ -34,10 +39,12 @@ public class ExpenseClaim {
     @Column(length = 2000)
     private String description;
 
-    @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private ClaimStatus status = ClaimStatus.DRAFT;
 
+    @Column(length = 64)
+    private String tenant;
+
     private BigDecimal totalAmount = BigDecimal.ZERO;
 
     private LocalDateTime createdAt;
@@ -58,6 +65,14 @@ public class ExpenseClaim {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getReferenceNumber() {
         return referenceNumber;
     }
@@ -90,6 +105,14 @@ public class ExpenseClaim {
         this.status = status;
     }
 
+    public String getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
     public BigDecimal getTotalAmount() {
         return totalAmount;
     }
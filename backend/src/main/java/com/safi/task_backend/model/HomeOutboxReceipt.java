@@ -0,0 +1,72 @@
+package com.safi.task_backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@IdClass(HomeOutboxReceipt.Key.class)
+@Table(name = "home_outbox_receipts")
+public class HomeOutboxReceipt {
+
+    @Id
+    private int shard;
+
+    @Id
+    private Long entryId;
+
+    @Column(nullable = false)
+    private LocalDateTime appliedAt;
+
+    public int getShard() {
+        return shard;
+    }
+
+    public void setShard(int shard) {
+        this.shard = shard;
+    }
+
+    public Long getEntryId() {
+        return entryId;
+    }
+
+    public void setEntryId(Long entryId) {
+        this.entryId = entryId;
+    }
+
+    public LocalDateTime getAppliedAt() {
+        return appliedAt;
+    }
+
+    public void setAppliedAt(LocalDateTime appliedAt) {
+        this.appliedAt = appliedAt;
+    }
+
+    public static class Key implements Serializable {
+
+        private int shard;
+        private Long entryId;
+
+        public Key() {}
+
+        public Key(int shard, Long entryId) {
+            this.shard = shard;
+            this.entryId = entryId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && shard == key.shard && Objects.equals(entryId, key.entryId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shard, entryId);
+        }
+    }
+}
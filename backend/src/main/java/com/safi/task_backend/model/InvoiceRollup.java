@@ -0,0 +1,98 @@
+package com.safi.task_backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "invoice_rollups")
+public class InvoiceRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private LocalDate bucketDate;
+
+    private long invoiceCount;
+
+    private BigDecimal subtotal = BigDecimal.ZERO;
+
+    private BigDecimal tax = BigDecimal.ZERO;
+
+    private BigDecimal total = BigDecimal.ZERO;
+
+    private long approvedCount;
+
+    private long approvalLeadSeconds;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getBucketDate() {
+        return bucketDate;
+    }
+
+    public void setBucketDate(LocalDate bucketDate) {
+        this.bucketDate = bucketDate;
+    }
+
+    public long getInvoiceCount() {
+        return invoiceCount;
+    }
+
+    public void setInvoiceCount(long invoiceCount) {
+        this.invoiceCount = invoiceCount;
+    }
+
+    public BigDecimal getSubtotal() {
+        return subtotal;
+    }
+
+    public void setSubtotal(BigDecimal subtotal) {
+        this.subtotal = subtotal;
+    }
+
+    public BigDecimal getTax() {
+        return tax;
+    }
+
+    public void setTax(BigDecimal tax) {
+        this.tax = tax;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public long getApprovedCount() {
+        return approvedCount;
+    }
+
+    public void setApprovedCount(long approvedCount) {
+        this.approvedCount = approvedCount;
+    }
+
+    public long getApprovalLeadSeconds() {
+        return approvalLeadSeconds;
+    }
+
+    public void setApprovalLeadSeconds(long approvalLeadSeconds) {
+        this.approvalLeadSeconds = approvalLeadSeconds;
+    }
+}
@@ -0,0 +1,34 @@
+package com.safi.task_backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "restored_claims")
+public class RestoredClaim {
+
+    @Id
+    private Long claimId;
+
+    @Column(nullable = false)
+    private LocalDateTime restoredAt;
+
+    public Long getClaimId() {
+        return claimId;
+    }
+
+    public void setClaimId(Long claimId) {
+        this.claimId = claimId;
+    }
+
+    public LocalDateTime getRestoredAt() {
+        return restoredAt;
+    }
+
+    public void setRestoredAt(LocalDateTime restoredAt) {
+        this.restoredAt = restoredAt;
+    }
+}
@@ -3,12 +3,11 @@ package com.safi.task_backend.model;
 import com.safi.task_backend.model.enums.ClaimStatus;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.EnumType;
-import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
@@ -16,7 +15,9 @@ import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "status_history")
+@Table(
+        name = "status_history",
+        indexes = @Index(name = "idx_status_history_claim_to_status", columnList = "claim_id, toStatus, createdAt"))
 public class StatusHistory {
 
     @Id
@@ -27,10 +28,8 @@ public class StatusHistory {
     @JoinColumn(name = "claim_id")
     private ExpenseClaim claim;
 
-    @Enumerated(EnumType.STRING)
     private ClaimStatus fromStatus;
 
-    @Enumerated(EnumType.STRING)
     private ClaimStatus toStatus;
 
     @Column(length = 2000)
@@ -41,6 +40,10 @@ public class StatusHistory {
     @Lob
     private String snapshot;
 
+    // Set for entries written through the write-behind journal, so a replay never inserts an entry twice.
+    @Column(length = 36, unique = true)
+    private String journalId;
+
     public Long getId() {
         return id;
     }
@@ -96,4 +99,12 @@ public class StatusHistory {
     public void setSnapshot(String snapshot) {
         this.snapshot = snapshot;
     }
+
+    public String getJournalId() {
+        return journalId;
+    }
+
+    public void setJournalId(String journalId) {
+        this.journalId = journalId;
+    }
 }
@@ -0,0 +1,89 @@
+package com.safi.task_backend.model;
+
+import com.safi.task_backend.model.enums.StockMovementType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(
+        name = "stock_movements",
+        indexes = {
+            @Index(name = "idx_stock_movement_created_at", columnList = "createdAt"),
+            @Index(name = "idx_stock_movement_item", columnList = "stockItemId, createdAt")
+        })
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private long stockItemId;
+
+    private Long invoiceId;
+
+    private long quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StockMovementType type;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public long getStockItemId() {
+        return stockItemId;
+    }
+
+    public void setStockItemId(long stockItemId) {
+        this.stockItemId = stockItemId;
+    }
+
+    public Long getInvoiceId() {
+        return invoiceId;
+    }
+
+    public void setInvoiceId(Long invoiceId) {
+        this.invoiceId = invoiceId;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public StockMovementType getType() {
+        return type;
+    }
+
+    public void setType(StockMovementType type) {
+        this.type = type;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
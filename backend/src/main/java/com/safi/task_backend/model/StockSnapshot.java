@@ -0,0 +1,88 @@
+package com.safi.task_backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(
+        name = "stock_snapshots",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_stock_snapshot_item_cutoff", columnNames = {"stockItemId", "coveredThroughId"}),
+        indexes = {
+            @Index(name = "idx_stock_snapshot_cutoff", columnList = "coveredThroughId"),
+            @Index(name = "idx_stock_snapshot_covered_at", columnList = "coveredThrough")
+        })
+public class StockSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private long stockItemId;
+
+    private long quantity;
+
+    @Column(nullable = false)
+    private long coveredThroughId;
+
+    @Column(nullable = false)
+    private LocalDateTime coveredThrough;
+
+    private LocalDateTime createdAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public long getStockItemId() {
+        return stockItemId;
+    }
+
+    public void setStockItemId(long stockItemId) {
+        this.stockItemId = stockItemId;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public long getCoveredThroughId() {
+        return coveredThroughId;
+    }
+
+    public void setCoveredThroughId(long coveredThroughId) {
+        this.coveredThroughId = coveredThroughId;
+    }
+
+    public LocalDateTime getCoveredThrough() {
+        return coveredThrough;
+    }
+
+    public void setCoveredThrough(LocalDateTime coveredThrough) {
+        this.coveredThrough = coveredThrough;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
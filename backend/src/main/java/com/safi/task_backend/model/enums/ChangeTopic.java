@@ -0,0 +1,7 @@
+package com.safi.task_backend.model.enums;
+
+public enum ChangeTopic {
+    CLAIM,
+    INVOICE,
+    STOCK
+}
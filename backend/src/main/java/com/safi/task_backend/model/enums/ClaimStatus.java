@@ -1,9 +1,102 @@
 package com.safi.task_backend.model.enums;
 
-public enum ClaimStatus {
-    DRAFT,
-    SUBMITTED,
-    UNDER_REVIEW,
-    APPROVED,
-    INVOICED
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class ClaimStatus implements Comparable<ClaimStatus> {
+
+    private static final Map<String, ClaimStatus> BY_NAME = new ConcurrentHashMap<>();
+    private static final int UNREGISTERED = Integer.MAX_VALUE;
+    private static volatile List<ClaimStatus> byOrdinal = List.of();
+
+    public static final ClaimStatus DRAFT = register("DRAFT");
+    public static final ClaimStatus SUBMITTED = register("SUBMITTED");
+    public static final ClaimStatus UNDER_REVIEW = register("UNDER_REVIEW");
+    public static final ClaimStatus APPROVED = register("APPROVED");
+    public static final ClaimStatus INVOICED = register("INVOICED");
+
+    private final String name;
+    private final int ordinal;
+
+    private ClaimStatus(String name, int ordinal) {
+        this.name = name;
+        this.ordinal = ordinal;
+    }
+
+    public static boolean isValidName(String name) {
+        return name != null && name.matches("[A-Z][A-Z0-9_]*");
+    }
+
+    public static synchronized ClaimStatus register(String name) {
+        if (!isValidName(name)) {
+            throw new IllegalArgumentException("Invalid claim status name: " + name);
+        }
+        ClaimStatus existing = BY_NAME.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        List<ClaimStatus> statuses = new ArrayList<>(byOrdinal);
+        ClaimStatus status = new ClaimStatus(name, statuses.size());
+        statuses.add(status);
+        byOrdinal = Collections.unmodifiableList(statuses);
+        BY_NAME.put(name, status);
+        return status;
+    }
+
+    @JsonCreator
+    public static ClaimStatus valueOf(String name) {
+        ClaimStatus status = BY_NAME.get(name);
+        if (status == null) {
+            throw new IllegalArgumentException("Unknown claim status: " + name);
+        }
+        return status;
+    }
+
+    // names no workflow has registered, e.g. stored by another node, read as a detached status with no transitions
+    public static ClaimStatus lookup(String name) {
+        ClaimStatus status = BY_NAME.get(name);
+        return status != null ? status : new ClaimStatus(name, UNREGISTERED);
+    }
+
+    public static List<ClaimStatus> values() {
+        return byOrdinal;
+    }
+
+    public static int count() {
+        return byOrdinal.size();
+    }
+
+    @JsonValue
+    public String name() {
+        return name;
+    }
+
+    public int ordinal() {
+        return ordinal;
+    }
+
+    @Override
+    public int compareTo(ClaimStatus other) {
+        return Integer.compare(ordinal, other.ordinal);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ClaimStatus status && name.equals(status.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
 }
@@ -0,0 +1,18 @@
+package com.safi.task_backend.model.enums;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter(autoApply = true)
+public class ClaimStatusConverter implements AttributeConverter<ClaimStatus, String> {
+
+    @Override
+    public String convertToDatabaseColumn(ClaimStatus status) {
+        return status != null ? status.name() : null;
+    }
+
+    @Override
+    public ClaimStatus convertToEntityAttribute(String name) {
+        return name != null ? ClaimStatus.lookup(name) : null;
+    }
+}
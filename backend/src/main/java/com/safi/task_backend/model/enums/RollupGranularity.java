@@ -0,0 +1,19 @@
+package com.safi.task_backend.model.enums;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+public enum RollupGranularity {
+    DAY,
+    WEEK,
+    MONTH;
+
+    public LocalDate periodStart(LocalDate day) {
+        return switch (this) {
+            case DAY -> day;
+            case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> day.withDayOfMonth(1);
+        };
+    }
+}
@@ -0,0 +1,9 @@
+package com.safi.task_backend.model.enums;
+
+public enum StockMovementType {
+    OPENING,
+    APPLY,
+    BULK_APPLY,
+    REVERT,
+    ADJUSTMENT
+}
@@ -0,0 +1,44 @@
+package com.safi.task_backend.repository;
+
+import com.safi.task_backend.model.ClaimReadModel;
+import com.safi.task_backend.model.enums.ClaimStatus;
+import com.safi.task_backend.model.enums.InvoiceStatus;
+import java.math.BigDecimal;
+import java.util.Collection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface ClaimReadModelRepository extends JpaRepository<ClaimReadModel, Long> {
+    @Query(
+            value = """
+                    select r from ClaimReadModel r
+                    where (:status is null or r.status = :status)
+                      and (:tenant is null or r.tenant = :tenant)
+                      and (:invoiceStatus is null or r.invoiceStatus = :invoiceStatus)
+                      and (:claimant is null or r.claimantName like concat(:claimant, '%'))
+                    order by r.createdAt desc, r.claimId desc
+                    """,
+            countQuery = """
+                    select count(r) from ClaimReadModel r
+                    where (:status is null or r.status = :status)
+                      and (:tenant is null or r.tenant = :tenant)
+                      and (:invoiceStatus is null or r.invoiceStatus = :invoiceStatus)
+                      and (:claimant is null or r.claimantName like concat(:claimant, '%'))
+                    """)
+    Page<ClaimReadModel> search(
+            ClaimStatus status, String tenant, InvoiceStatus invoiceStatus, String claimant, Pageable pageable);
+
+    long countByStatusNotIn(Collection<ClaimStatus> statuses);
+
+    long countByInvoiceStatus(InvoiceStatus invoiceStatus);
+
+    @Query("select coalesce(sum(r.totalAmount), 0) from ClaimReadModel r")
+    BigDecimal sumTotalAmount();
+
+    @Modifying
+    @Query("update ClaimReadModel r set r.invoiceStatus = :invoiceStatus where r.invoiceId in :invoiceIds")
+    int updateInvoiceStatus(Collection<Long> invoiceIds, InvoiceStatus invoiceStatus);
+}
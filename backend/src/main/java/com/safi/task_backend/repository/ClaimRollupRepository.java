@@ -0,0 +1,10 @@
+package com.safi.task_backend.repository;
+
+import com.safi.task_backend.model.ClaimRollup;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ClaimRollupRepository extends JpaRepository<ClaimRollup, Long> {
+    List<ClaimRollup> findByBucketDateBetweenOrderByBucketDateAsc(LocalDate from, LocalDate to);
+}
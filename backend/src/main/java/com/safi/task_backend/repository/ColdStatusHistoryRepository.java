@@ -0,0 +1,12 @@
+package com.safi.task_backend.repository;
+
+import com.safi.task_backend.model.ColdStatusHistory;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ColdStatusHistoryRepository extends JpaRepository<ColdStatusHistory, ColdStatusHistory.Key> {
+    List<ColdStatusHistory> findByClaimIdOrderByCreatedAtAsc(Long claimId);
+
+    List<ColdStatusHistory> findByClaimIdInOrderByIdAsc(Collection<Long> claimIds);
+}
@@ -3,13 +3,49 @@ package com.safi.task_backend.repository;
 import com.safi.task_backend.model.ExpenseClaim;
 import com.safi.task_backend.model.enums.ClaimStatus;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
 public interface ExpenseClaimRepository extends JpaRepository<ExpenseClaim, Long> {
-    long countByStatusIn(Collection<ClaimStatus> statuses);
+    long countByStatusNotIn(Collection<ClaimStatus> statuses);
+
+    @Query("select c.version from ExpenseClaim c where c.id = :id")
+    List<Long> findVersionById(Long id);
+
+    @Query(value = "select c.id, c.version, c.createdAt from ExpenseClaim c", countQuery = "select count(c) from ExpenseClaim c")
+    Page<Object[]> findVersions(Pageable pageable);
+
+    @Query("""
+            select i.claim.id, i.id, i.itemName, i.quantity, i.unitPrice from ClaimItem i
+            where i.claim.id in :claimIds order by i.id
+            """)
+    List<Object[]> findItemRows(Collection<Long> claimIds);
+
+    @Query("""
+            select c.id from ExpenseClaim c join c.invoice i
+            where c.status = :status and i.status = com.safi.task_backend.model.enums.InvoiceStatus.APPROVED
+                and c.updatedAt < :cutoff
+            order by c.id
+            """)
+    List<Long> findArchivable(ClaimStatus status, LocalDateTime cutoff, Pageable pageable);
 
     @Query("select coalesce(sum(c.totalAmount), 0) from ExpenseClaim c")
     BigDecimal sumTotalAmount();
+
+    @Query("select c.createdAt, c.status, c.totalAmount from ExpenseClaim c")
+    Slice<Object[]> scanRollupFacts(Pageable pageable);
+
+    @Query("""
+            select c.id, c.referenceNumber, c.claimantName, c.status, c.tenant, c.totalAmount, size(c.items),
+                   i.id, i.status, c.createdAt,
+                   (select max(h.createdAt) from StatusHistory h where h.claim = c and h.fromStatus <> h.toStatus)
+            from ExpenseClaim c left join c.invoice i
+            """)
+    Slice<Object[]> scanReadModelFacts(Pageable pageable);
 }
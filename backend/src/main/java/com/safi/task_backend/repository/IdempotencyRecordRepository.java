@@ -0,0 +1,49 @@
+package com.safi.task_backend.repository;
+
+import com.safi.task_backend.model.IdempotencyRecord;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+    Optional<IdempotencyRecord> findByIdempotencyKey(String idempotencyKey);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update IdempotencyRecord r set r.leaseToken = :token, r.leaseExpiresAt = :until
+            where r.idempotencyKey = :key and r.leaseToken = :expiredToken and r.responseBody is null
+                and r.leaseExpiresAt < :now
+            """)
+    int takeOver(String key, String expiredToken, String token, LocalDateTime until, LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update IdempotencyRecord r set r.leaseExpiresAt = :until
+            where r.idempotencyKey = :key and r.leaseToken = :token and r.responseBody is null
+            """)
+    int renew(String key, String token, LocalDateTime until);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update IdempotencyRecord r
+            set r.responseBody = :body, r.expiresAt = :expiresAt, r.leaseToken = null, r.leaseExpiresAt = null
+            where r.idempotencyKey = :key and r.leaseToken = :token and r.responseBody is null
+            """)
+    int complete(String key, String token, String body, LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.idempotencyKey = :key and r.leaseToken = :token")
+    int release(String key, String token);
+}
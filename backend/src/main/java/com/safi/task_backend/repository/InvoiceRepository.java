@@ -2,11 +2,58 @@ package com.safi.task_backend.repository;
 
 import com.safi.task_backend.model.Invoice;
 import com.safi.task_backend.model.enums.InvoiceStatus;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     Optional<Invoice> findByClaimId(Long claimId);
 
     long countByStatus(InvoiceStatus status);
+
+    @Query("select i.updatedAt from Invoice i where i.id = :id")
+    List<LocalDateTime> findUpdatedAtById(Long id);
+
+    @Query("select i.version from Invoice i where i.id = :id")
+    List<Long> findVersionById(Long id);
+
+    @Query(value = "select i.id, i.version, i.createdAt from Invoice i", countQuery = "select count(i) from Invoice i")
+    Page<Object[]> findVersions(Pageable pageable);
+
+    @Query("""
+            select l.invoice.id, l.itemName, l.quantity, l.unitPrice, l.lineTotal from InvoiceItem l
+            where l.invoice.id in :invoiceIds order by l.id
+            """)
+    List<Object[]> findLineRows(Collection<Long> invoiceIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Invoice i
+            set i.status = com.safi.task_backend.model.enums.InvoiceStatus.APPROVED, i.stockApplied = true,
+                i.approvedAt = :now, i.updatedAt = :now, i.version = i.version + 1
+            where i.id = :id and i.status = com.safi.task_backend.model.enums.InvoiceStatus.DRAFT
+                and i.stockApplied = false
+            """)
+    int markApproved(Long id, LocalDateTime now);
+
+    // leaves the version alone so an invoice already loaded for deletion still passes its version check
+    @Modifying(flushAutomatically = true)
+    @Query("update Invoice i set i.stockApplied = false where i.id = :id and i.stockApplied = true")
+    int clearStockApplied(Long id);
+
+    @Query("select distinct i from Invoice i left join fetch i.items left join fetch i.claim where i.id in :ids")
+    List<Invoice> findWithItemsByIdIn(Collection<Long> ids);
+
+    @Query("""
+            select i.createdAt, i.subtotal, i.tax, i.total, i.approvedAt, c.createdAt
+            from Invoice i left join i.claim c
+            """)
+    Slice<Object[]> scanRollupFacts(Pageable pageable);
 }
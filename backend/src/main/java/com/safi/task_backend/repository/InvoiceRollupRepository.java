@@ -0,0 +1,10 @@
+package com.safi.task_backend.repository;
+
+import com.safi.task_backend.model.InvoiceRollup;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface InvoiceRollupRepository extends JpaRepository<InvoiceRollup, Long> {
+    List<InvoiceRollup> findByBucketDateBetweenOrderByBucketDateAsc(LocalDate from, LocalDate to);
+}
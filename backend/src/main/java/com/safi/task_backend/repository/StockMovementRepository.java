@@ -0,0 +1,52 @@
+package com.safi.task_backend.repository;
+
+import com.safi.task_backend.model.StockMovement;
+import com.safi.task_backend.model.enums.StockMovementType;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+    Page<StockMovement> findByStockItemIdOrderByIdDesc(long stockItemId, Pageable pageable);
+
+    @Query("""
+            select m.stockItemId, sum(m.quantity) from StockMovement m
+            where m.createdAt <= :to
+            group by m.stockItemId
+            """)
+    List<Object[]> sumByItemUpTo(LocalDateTime to);
+
+    @Query("""
+            select m.stockItemId, sum(m.quantity) from StockMovement m
+            where m.id > :afterId and m.createdAt <= :to
+            group by m.stockItemId
+            """)
+    List<Object[]> sumByItemAfterIdUpTo(long afterId, LocalDateTime to);
+
+    @Query("""
+            select m.stockItemId, sum(m.quantity) from StockMovement m
+            where m.id > :afterId and m.id <= :throughId
+            group by m.stockItemId
+            """)
+    List<Object[]> sumByItemBetweenIds(long afterId, long throughId);
+
+    @Query("select max(m.id) from StockMovement m where m.createdAt <= :cutoff")
+    Long findMaxIdCreatedUpTo(LocalDateTime cutoff);
+
+    @Query("""
+            select m.id from StockMovement m
+            where m.id >= :afterId and m.id < :throughId
+            and not exists (select n.id from StockMovement n where n.id = m.id + 1)
+            order by m.id
+            """)
+    List<Long> findIdsBeforeGaps(long afterId, long throughId);
+
+    @Query("""
+            select coalesce(sum(m.quantity), 0) from StockMovement m
+            where m.stockItemId = :stockItemId and m.type <> :excluded
+            """)
+    long sumExcluding(long stockItemId, StockMovementType excluded);
+}
@@ -0,0 +1,22 @@
+package com.safi.task_backend.repository;
+
+import com.safi.task_backend.model.StockSnapshot;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+    List<StockSnapshot> findByCoveredThroughId(long coveredThroughId);
+
+    @Query("select max(s.coveredThroughId) from StockSnapshot s where s.coveredThrough <= :asOf")
+    Long findLatestCoveredId(LocalDateTime asOf);
+
+    @Query("select max(s.coveredThroughId) from StockSnapshot s")
+    Long findLatestCoveredId();
+
+    @Modifying
+    @Query("delete from StockSnapshot s where s.coveredThrough < :before and s.coveredThroughId < :latest")
+    int deleteOlderThan(LocalDateTime before, long latest);
+}
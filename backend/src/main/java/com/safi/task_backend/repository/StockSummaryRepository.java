@@ -1,9 +1,16 @@
 package com.safi.task_backend.repository;
 
 import com.safi.task_backend.model.StockSummary;
+import jakarta.persistence.LockModeType;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 
 public interface StockSummaryRepository extends JpaRepository<StockSummary, Long> {
     Optional<StockSummary> findByItemNameIgnoreCase(String itemName);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from StockSummary s where s.id = :id")
+    Optional<StockSummary> lockById(long id);
 }
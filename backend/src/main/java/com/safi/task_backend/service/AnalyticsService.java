@@ -0,0 +1,426 @@
+package com.safi.task_backend.service;
+
+import com.safi.task_backend.dto.AnalyticsBackfillResponse;
+import com.safi.task_backend.dto.ArchivedClaim;
+import com.safi.task_backend.dto.ClaimRollupBucket;
+import com.safi.task_backend.dto.InvoiceRollupBucket;
+import com.safi.task_backend.model.ClaimRollup;
+import com.safi.task_backend.model.InvoiceRollup;
+import com.safi.task_backend.model.enums.ClaimStatus;
+import com.safi.task_backend.model.enums.RollupGranularity;
+import com.safi.task_backend.repository.ClaimRollupRepository;
+import com.safi.task_backend.repository.ExpenseClaimRepository;
+import com.safi.task_backend.repository.InvoiceRepository;
+import com.safi.task_backend.repository.InvoiceRollupRepository;
+import jakarta.transaction.Transactional;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class AnalyticsService {
+
+    private static final int BACKFILL_PAGE_SIZE = 1000;
+
+    private static final String MYSQL_CLAIM_UPSERT = """
+            insert into claim_rollups (bucket_date, status, claim_count, total_value) values (?, ?, ?, ?)
+            on duplicate key update claim_count = claim_count + values(claim_count),
+                total_value = total_value + values(total_value)
+            """;
+
+    private static final String H2_CLAIM_UPSERT = """
+            merge into claim_rollups r
+            using (select cast(? as date) as bucket_date, cast(? as varchar(255)) as status,
+                cast(? as bigint) as claim_count, cast(? as numeric(38, 2)) as total_value) d
+            on r.bucket_date = d.bucket_date and r.status = d.status
+            when matched then update set claim_count = r.claim_count + d.claim_count,
+                total_value = r.total_value + d.total_value
+            when not matched then insert (bucket_date, status, claim_count, total_value)
+                values (d.bucket_date, d.status, d.claim_count, d.total_value)
+            """;
+
+    private static final String MYSQL_INVOICE_UPSERT = """
+            insert into invoice_rollups
+                (bucket_date, invoice_count, subtotal, tax, total, approved_count, approval_lead_seconds)
+            values (?, ?, ?, ?, ?, ?, ?)
+            on duplicate key update invoice_count = invoice_count + values(invoice_count),
+                subtotal = subtotal + values(subtotal),
+                tax = tax + values(tax),
+                total = total + values(total),
+                approved_count = approved_count + values(approved_count),
+                approval_lead_seconds = approval_lead_seconds + values(approval_lead_seconds)
+            """;
+
+    private static final String H2_INVOICE_UPSERT = """
+            merge into invoice_rollups r
+            using (select cast(? as date) as bucket_date, cast(? as bigint) as invoice_count,
+                cast(? as numeric(38, 2)) as subtotal, cast(? as numeric(38, 2)) as tax,
+                cast(? as numeric(38, 2)) as total, cast(? as bigint) as approved_count,
+                cast(? as bigint) as approval_lead_seconds) d
+            on r.bucket_date = d.bucket_date
+            when matched then update set invoice_count = r.invoice_count + d.invoice_count,
+                subtotal = r.subtotal + d.subtotal,
+                tax = r.tax + d.tax,
+                total = r.total + d.total,
+                approved_count = r.approved_count + d.approved_count,
+                approval_lead_seconds = r.approval_lead_seconds + d.approval_lead_seconds
+            when not matched then insert
+                (bucket_date, invoice_count, subtotal, tax, total, approved_count, approval_lead_seconds)
+                values (d.bucket_date, d.invoice_count, d.subtotal, d.tax, d.total, d.approved_count,
+                    d.approval_lead_seconds)
+            """;
+
+    private final ClaimRollupRepository claimRollupRepository;
+    private final InvoiceRollupRepository invoiceRollupRepository;
+    private final ExpenseClaimRepository claimRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final ShardRouter shards;
+    private final ClaimArchiveService archive;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate backfillTransaction;
+    private volatile Boolean mysql;
+
+    public AnalyticsService(
+            ClaimRollupRepository claimRollupRepository,
+            InvoiceRollupRepository invoiceRollupRepository,
+            ExpenseClaimRepository claimRepository,
+            InvoiceRepository invoiceRepository,
+            ShardRouter shards,
+            ClaimArchiveService archive,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.claimRollupRepository = claimRollupRepository;
+        this.invoiceRollupRepository = invoiceRollupRepository;
+        this.claimRepository = claimRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.shards = shards;
+        this.archive = archive;
+        this.jdbcTemplate = jdbcTemplate;
+        this.backfillTransaction = new TransactionTemplate(transactionManager);
+        this.backfillTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.backfillTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @Transactional
+    public void recordClaimChange(
+            LocalDateTime createdAt,
+            ClaimStatus fromStatus,
+            BigDecimal fromTotal,
+            ClaimStatus toStatus,
+            BigDecimal toTotal) {
+        LocalDate day = createdAt.toLocalDate();
+        if (fromStatus == toStatus) {
+            BigDecimal delta = toTotal.subtract(fromTotal);
+            if (delta.signum() != 0) {
+                incrementClaims(day, toStatus, 0, delta);
+            }
+            return;
+        }
+        if (fromStatus != null) {
+            incrementClaims(day, fromStatus, -1, fromTotal.negate());
+        }
+        incrementClaims(day, toStatus, 1, toTotal);
+    }
+
+    @Transactional
+    public void recordInvoiceCreated(LocalDateTime createdAt, BigDecimal subtotal, BigDecimal tax, BigDecimal total) {
+        incrementInvoicesCreated(createdAt.toLocalDate(), 1, subtotal, tax, total);
+    }
+
+    @Transactional
+    public void recordInvoiceRemoved(
+            LocalDateTime createdAt,
+            BigDecimal subtotal,
+            BigDecimal tax,
+            BigDecimal total,
+            LocalDateTime approvedAt,
+            LocalDateTime claimCreatedAt) {
+        incrementInvoicesCreated(createdAt.toLocalDate(), -1, subtotal.negate(), tax.negate(), total.negate());
+        if (approvedAt != null) {
+            incrementInvoicesApproved(approvedAt.toLocalDate(), -1, -leadSeconds(claimCreatedAt, createdAt, approvedAt));
+        }
+    }
+
+    @Transactional
+    public void recordInvoicesApproved(LocalDate approvedOn, long count, long leadSeconds) {
+        if (count != 0) {
+            incrementInvoicesApproved(approvedOn, count, leadSeconds);
+        }
+    }
+
+    public long leadSeconds(LocalDateTime claimCreatedAt, LocalDateTime invoiceCreatedAt, LocalDateTime approvedAt) {
+        LocalDateTime start = claimCreatedAt != null ? claimCreatedAt : invoiceCreatedAt;
+        return Duration.between(start, approvedAt).getSeconds();
+    }
+
+    public List<ClaimRollupBucket> claimRollups(LocalDate from, LocalDate to, RollupGranularity granularity) {
+        validateRange(from, to);
+        Map<LocalDate, Map<ClaimStatus, ClaimRollup>> periods = new TreeMap<>();
+        List<ClaimRollup> days =
+                scatterRollups(() -> claimRollupRepository.findByBucketDateBetweenOrderByBucketDateAsc(from, to));
+        for (ClaimRollup day : days) {
+            ClaimRollup period = periods
+                    .computeIfAbsent(granularity.periodStart(day.getBucketDate()), key -> new TreeMap<>())
+                    .computeIfAbsent(day.getStatus(), key -> new ClaimRollup());
+            period.setClaimCount(period.getClaimCount() + day.getClaimCount());
+            period.setTotalValue(period.getTotalValue().add(day.getTotalValue()));
+        }
+        List<ClaimRollupBucket> buckets = new ArrayList<>();
+        periods.forEach((periodStart, byStatus) -> byStatus.forEach((status, rollup) -> {
+            if (rollup.getClaimCount() != 0 || rollup.getTotalValue().signum() != 0) {
+                buckets.add(new ClaimRollupBucket(periodStart, status, rollup.getClaimCount(), rollup.getTotalValue()));
+            }
+        }));
+        return buckets;
+    }
+
+    public List<InvoiceRollupBucket> invoiceRollups(LocalDate from, LocalDate to, RollupGranularity granularity) {
+        validateRange(from, to);
+        Map<LocalDate, InvoiceRollup> periods = new TreeMap<>();
+        List<InvoiceRollup> days =
+                scatterRollups(() -> invoiceRollupRepository.findByBucketDateBetweenOrderByBucketDateAsc(from, to));
+        for (InvoiceRollup day : days) {
+            InvoiceRollup period = periods.computeIfAbsent(
+                    granularity.periodStart(day.getBucketDate()), key -> new InvoiceRollup());
+            period.setInvoiceCount(period.getInvoiceCount() + day.getInvoiceCount());
+            period.setSubtotal(period.getSubtotal().add(day.getSubtotal()));
+            period.setTax(period.getTax().add(day.getTax()));
+            period.setTotal(period.getTotal().add(day.getTotal()));
+            period.setApprovedCount(period.getApprovedCount() + day.getApprovedCount());
+            period.setApprovalLeadSeconds(period.getApprovalLeadSeconds() + day.getApprovalLeadSeconds());
+        }
+        List<InvoiceRollupBucket> buckets = new ArrayList<>();
+        periods.forEach((periodStart, rollup) -> buckets.add(new InvoiceRollupBucket(
+                periodStart,
+                rollup.getInvoiceCount(),
+                rollup.getSubtotal(),
+                rollup.getTax(),
+                rollup.getTotal(),
+                rollup.getApprovedCount(),
+                rollup.getApprovedCount() == 0
+                        ? 0
+                        : rollup.getApprovalLeadSeconds() / 3600.0 / rollup.getApprovedCount())));
+        return buckets;
+    }
+
+    public AnalyticsBackfillResponse backfill() {
+        Map<Integer, Supplier<AnalyticsBackfillResponse>> work = new TreeMap<>();
+        for (int shard = 0; shard < shards.shardCount(); shard++) {
+            work.put(shard, () -> backfillTransaction.execute(status -> rebuildRollups()));
+        }
+        long claimsScanned = 0;
+        long invoicesScanned = 0;
+        int claimBuckets = 0;
+        int invoiceBuckets = 0;
+        for (AnalyticsBackfillResponse shard : shards.onShards(work).values()) {
+            claimsScanned += shard.claimsScanned();
+            invoicesScanned += shard.invoicesScanned();
+            claimBuckets += shard.claimBuckets();
+            invoiceBuckets += shard.invoiceBuckets();
+        }
+        return new AnalyticsBackfillResponse(claimsScanned, invoicesScanned, claimBuckets, invoiceBuckets);
+    }
+
+    private AnalyticsBackfillResponse rebuildRollups() {
+        Map<LocalDate, Map<ClaimStatus, ClaimRollup>> claimDays = new TreeMap<>();
+        long claimsScanned = 0;
+        Pageable page = PageRequest.of(0, BACKFILL_PAGE_SIZE, Sort.by("id"));
+        Slice<Object[]> claims;
+        do {
+            claims = claimRepository.scanRollupFacts(page);
+            for (Object[] row : claims) {
+                addClaimFact(claimDays, (LocalDateTime) row[0], (ClaimStatus) row[1], (BigDecimal) row[2]);
+                claimsScanned++;
+            }
+            page = claims.nextPageable();
+        } while (claims.hasNext());
+
+        Map<LocalDate, InvoiceRollup> invoiceDays = new TreeMap<>();
+        long invoicesScanned = 0;
+        page = PageRequest.of(0, BACKFILL_PAGE_SIZE, Sort.by("id"));
+        Slice<Object[]> invoices;
+        do {
+            invoices = invoiceRepository.scanRollupFacts(page);
+            for (Object[] row : invoices) {
+                addInvoiceFact(invoiceDays, (LocalDateTime) row[0], (BigDecimal) row[1], (BigDecimal) row[2],
+                        (BigDecimal) row[3], (LocalDateTime) row[4], (LocalDateTime) row[5]);
+                invoicesScanned++;
+            }
+            page = invoices.nextPageable();
+        } while (invoices.hasNext());
+
+        // archived claims left the live tables but still count, each with its invoice
+        long archived = archive.forEachArchivedOnShard(claim -> {
+            addClaimFact(claimDays, claim.createdAt(), claim.status(), claim.totalAmount());
+            ArchivedClaim.ArchivedInvoice invoice = claim.invoice();
+            addInvoiceFact(invoiceDays, invoice.createdAt(), invoice.subtotal(), invoice.tax(), invoice.total(),
+                    invoice.approvedAt(), claim.createdAt());
+        });
+        claimsScanned += archived;
+        invoicesScanned += archived;
+
+        int claimBuckets = (int) claimDays.values().stream().mapToLong(Map::size).sum();
+        int invoiceBuckets = invoiceDays.size();
+
+        // Rollups are read in the same snapshot as the facts and corrected by the difference, so increments
+        // committed by writers during the scan are added on top rather than overwritten.
+        for (ClaimRollup current : claimRollupRepository.findAll()) {
+            ClaimRollup rebuilt = claimDays
+                    .computeIfAbsent(current.getBucketDate(), key -> new TreeMap<>())
+                    .computeIfAbsent(current.getStatus(), key -> newClaimRollup(current.getBucketDate(), key));
+            rebuilt.setClaimCount(rebuilt.getClaimCount() - current.getClaimCount());
+            rebuilt.setTotalValue(rebuilt.getTotalValue().subtract(current.getTotalValue()));
+        }
+        for (InvoiceRollup current : invoiceRollupRepository.findAll()) {
+            InvoiceRollup rebuilt = invoiceDays.computeIfAbsent(current.getBucketDate(), this::newInvoiceRollup);
+            rebuilt.setInvoiceCount(rebuilt.getInvoiceCount() - current.getInvoiceCount());
+            rebuilt.setSubtotal(rebuilt.getSubtotal().subtract(current.getSubtotal()));
+            rebuilt.setTax(rebuilt.getTax().subtract(current.getTax()));
+            rebuilt.setTotal(rebuilt.getTotal().subtract(current.getTotal()));
+            rebuilt.setApprovedCount(rebuilt.getApprovedCount() - current.getApprovedCount());
+            rebuilt.setApprovalLeadSeconds(rebuilt.getApprovalLeadSeconds() - current.getApprovalLeadSeconds());
+        }
+        claimDays.values().forEach(byStatus -> byStatus.values().forEach(delta -> {
+            if (delta.getClaimCount() != 0 || delta.getTotalValue().signum() != 0) {
+                incrementClaims(delta.getBucketDate(), delta.getStatus(), delta.getClaimCount(), delta.getTotalValue());
+            }
+        }));
+        invoiceDays.values().forEach(delta -> {
+            if (delta.getInvoiceCount() != 0
+                    || delta.getSubtotal().signum() != 0
+                    || delta.getTax().signum() != 0
+                    || delta.getTotal().signum() != 0
+                    || delta.getApprovedCount() != 0
+                    || delta.getApprovalLeadSeconds() != 0) {
+                upsertInvoices(
+                        delta.getBucketDate(),
+                        delta.getInvoiceCount(),
+                        delta.getSubtotal(),
+                        delta.getTax(),
+                        delta.getTotal(),
+                        delta.getApprovedCount(),
+                        delta.getApprovalLeadSeconds());
+            }
+        });
+        return new AnalyticsBackfillResponse(claimsScanned, invoicesScanned, claimBuckets, invoiceBuckets);
+    }
+
+    private void addClaimFact(
+            Map<LocalDate, Map<ClaimStatus, ClaimRollup>> claimDays,
+            LocalDateTime createdAt,
+            ClaimStatus status,
+            BigDecimal total) {
+        LocalDate day = createdAt.toLocalDate();
+        ClaimRollup rollup = claimDays
+                .computeIfAbsent(day, key -> new TreeMap<>())
+                .computeIfAbsent(status, key -> newClaimRollup(day, status));
+        rollup.setClaimCount(rollup.getClaimCount() + 1);
+        rollup.setTotalValue(rollup.getTotalValue().add(total == null ? BigDecimal.ZERO : total));
+    }
+
+    private void addInvoiceFact(
+            Map<LocalDate, InvoiceRollup> invoiceDays,
+            LocalDateTime createdAt,
+            BigDecimal subtotal,
+            BigDecimal tax,
+            BigDecimal total,
+            LocalDateTime approvedAt,
+            LocalDateTime claimCreatedAt) {
+        InvoiceRollup created = invoiceDays.computeIfAbsent(createdAt.toLocalDate(), this::newInvoiceRollup);
+        created.setInvoiceCount(created.getInvoiceCount() + 1);
+        created.setSubtotal(created.getSubtotal().add(subtotal));
+        created.setTax(created.getTax().add(tax));
+        created.setTotal(created.getTotal().add(total));
+        if (approvedAt != null) {
+            InvoiceRollup approved = invoiceDays.computeIfAbsent(approvedAt.toLocalDate(), this::newInvoiceRollup);
+            approved.setApprovedCount(approved.getApprovedCount() + 1);
+            approved.setApprovalLeadSeconds(
+                    approved.getApprovalLeadSeconds() + leadSeconds(claimCreatedAt, createdAt, approvedAt));
+        }
+    }
+
+    private <T> List<T> scatterRollups(Supplier<List<T>> query) {
+        return shards.scatter(query).stream().flatMap(List::stream).toList();
+    }
+
+    private void incrementClaims(LocalDate day, ClaimStatus status, long count, BigDecimal value) {
+        jdbcTemplate.update(isMysql() ? MYSQL_CLAIM_UPSERT : H2_CLAIM_UPSERT, day, status.name(), count, value);
+    }
+
+    private void incrementInvoicesCreated(
+            LocalDate day, long count, BigDecimal subtotal, BigDecimal tax, BigDecimal total) {
+        upsertInvoices(day, count, subtotal, tax, total, 0, 0);
+    }
+
+    private void incrementInvoicesApproved(LocalDate day, long count, long leadSeconds) {
+        upsertInvoices(day, 0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, count, leadSeconds);
+    }
+
+    private void upsertInvoices(
+            LocalDate day,
+            long count,
+            BigDecimal subtotal,
+            BigDecimal tax,
+            BigDecimal total,
+            long approvedCount,
+            long leadSeconds) {
+        jdbcTemplate.update(
+                isMysql() ? MYSQL_INVOICE_UPSERT : H2_INVOICE_UPSERT,
+                day,
+                count,
+                subtotal,
+                tax,
+                total,
+                approvedCount,
+                leadSeconds);
+    }
+
+    private boolean isMysql() {
+        Boolean detected = mysql;
+        if (detected == null) {
+            detected = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> connection
+                    .getMetaData()
+                    .getDatabaseProductName()
+                    .toLowerCase(Locale.ROOT)
+                    .contains("mysql"));
+            mysql = detected;
+        }
+        return detected;
+    }
+
+    private ClaimRollup newClaimRollup(LocalDate day, ClaimStatus status) {
+        ClaimRollup rollup = new ClaimRollup();
+        rollup.setBucketDate(day);
+        rollup.setStatus(status);
+        return rollup;
+    }
+
+    private InvoiceRollup newInvoiceRollup(LocalDate day) {
+        InvoiceRollup rollup = new InvoiceRollup();
+        rollup.setBucketDate(day);
+        return rollup;
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+    }
+}
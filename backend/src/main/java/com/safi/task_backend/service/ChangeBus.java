@@ -0,0 +1,254 @@
+package com.safi.task_backend.service;
+
+import com.safi.task_backend.model.enums.ChangeTopic;
+import com.safi.task_backend.util.LocalCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+public class ChangeBus {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeBus.class);
+    private static final int MAX_GAPS = 10_000;
+    private static final String CHANGE_LOG = "change-log";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shards;
+    private final HomeOutbox homeOutbox;
+    private final boolean enabled;
+    private final String nodeId;
+    private final long maxStalenessNanos;
+    private final long gapTimeoutNanos;
+    private final Duration retention;
+    private final int batchSize;
+    private final int cacheMaxEntries;
+    private final long cacheTtlNanos;
+    private final Map<ChangeTopic, List<Consumer<Long>>> listeners = new EnumMap<>(ChangeTopic.class);
+    private final Map<ChangeTopic, Counter> received = new EnumMap<>(ChangeTopic.class);
+    private final Map<Long, Long> gaps = new ConcurrentHashMap<>();
+    private final Timer lag;
+    private volatile long lastPollNanos;
+    private long lastSeenId = -1;
+
+    public ChangeBus(
+            JdbcTemplate jdbcTemplate,
+            ShardRouter shards,
+            HomeOutbox homeOutbox,
+            MeterRegistry meterRegistry,
+            @Value("${cache.invalidation.enabled:true}") boolean enabled,
+            @Value("${cache.invalidation.node-id:}") String nodeId,
+            @Value("${cache.invalidation.max-staleness:PT5S}") Duration maxStaleness,
+            @Value("${cache.invalidation.gap-timeout:PT30S}") Duration gapTimeout,
+            @Value("${cache.invalidation.retention:PT1H}") Duration retention,
+            @Value("${cache.invalidation.batch-size:1000}") int batchSize,
+            @Value("${cache.local.max-entries:10000}") int cacheMaxEntries,
+            @Value("${cache.local.ttl:PT10M}") Duration cacheTtl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+        this.homeOutbox = homeOutbox;
+        this.enabled = enabled;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.cacheMaxEntries = cacheMaxEntries;
+        this.cacheTtlNanos = cacheTtl.toNanos();
+        for (ChangeTopic topic : ChangeTopic.values()) {
+            listeners.put(topic, new CopyOnWriteArrayList<>());
+            received.put(topic, Counter.builder("cache.invalidation.received")
+                    .tag("topic", topic.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        this.lag = Timer.builder("cache.invalidation.lag")
+                .description("Time from a write on another node to its invalidation here")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("cache.invalidation.staleness", this, bus -> bus.lastPollNanos == 0
+                        ? Double.NaN
+                        : (System.nanoTime() - bus.lastPollNanos) / 1e9)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("cache.invalidation.gaps", gaps, Map::size).register(meterRegistry);
+        homeOutbox.register(CHANGE_LOG, LogWrite.class, write -> jdbcTemplate.update(
+                "insert into change_log (topic, entity_id, origin, created_at) values (?, ?, ?, ?)",
+                write.topic().name(), write.entityId(), write.origin(), Timestamp.valueOf(write.createdAt())));
+    }
+
+    public <V> LocalCache<Long, V> entityCache(ChangeTopic topic) {
+        LocalCache<Long, V> cache = new LocalCache<>(cacheMaxEntries, cacheTtlNanos, this::cacheUsable);
+        listeners.get(topic).add(id -> {
+            if (id == null) {
+                cache.clear();
+            } else {
+                cache.invalidate(id);
+            }
+        });
+        return cache;
+    }
+
+    public <K, V> LocalCache<K, V> derivedCache(ChangeTopic... topics) {
+        LocalCache<K, V> cache = new LocalCache<>(cacheMaxEntries, cacheTtlNanos, this::cacheUsable);
+        for (ChangeTopic topic : topics) {
+            listeners.get(topic).add(id -> cache.clear());
+        }
+        return cache;
+    }
+
+    public void publish(ChangeTopic topic, Long entityId) {
+        if (!enabled) {
+            return;
+        }
+        homeOutbox.write(CHANGE_LOG, new LogWrite(topic, entityId, nodeId, LocalDateTime.now()));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(topic, entityId);
+                }
+            });
+        } else {
+            dispatch(topic, entityId);
+        }
+    }
+
+    public boolean isFresh() {
+        return enabled && lastPollNanos != 0 && System.nanoTime() - lastPollNanos <= maxStalenessNanos;
+    }
+
+    // a transaction may see its own uncommitted writes, which must neither be cached nor hidden behind the cache
+    private boolean cacheUsable() {
+        return isFresh() && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Scheduled(fixedDelayString = "${cache.invalidation.poll-interval:PT0.5S}")
+    public synchronized void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long started = System.nanoTime();
+            shards.onHome(() -> {
+                pollLog(started);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Change log poll failed; local caches are bypassed until a poll succeeds", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cache.invalidation.purge-interval:PT10M}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(retention));
+        shards.onHome(() -> jdbcTemplate.update("delete from change_log where created_at < ?", cutoff));
+    }
+
+    private void pollLog(long started) {
+        if (lastSeenId < 0) {
+            // nothing is cached before the first poll, so earlier changes need no replay
+            lastSeenId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from change_log", Long.class);
+            lastPollNanos = started;
+            return;
+        }
+        if (!isFresh()) {
+            listeners.keySet().forEach(topic -> dispatch(topic, null));
+        }
+        if (!gaps.isEmpty()) {
+            List<Long> missing = List.copyOf(gaps.keySet());
+            for (Change change : jdbcTemplate.query(
+                    "select id, topic, entity_id, origin, created_at from change_log where id in ("
+                            + String.join(", ", Collections.nCopies(missing.size(), "?")) + ")",
+                    (rs, row) -> change(rs),
+                    missing.toArray())) {
+                gaps.remove(change.id());
+                apply(change);
+            }
+            gaps.values().removeIf(deadline -> started - deadline > 0);
+        }
+        List<Change> changes;
+        do {
+            changes = jdbcTemplate.query(
+                    "select id, topic, entity_id, origin, created_at from change_log where id > ? order by id limit ?",
+                    (rs, row) -> change(rs),
+                    lastSeenId,
+                    batchSize);
+            for (Change change : changes) {
+                trackGaps(lastSeenId, change.id(), started);
+                lastSeenId = change.id();
+                apply(change);
+            }
+        } while (changes.size() == batchSize);
+        lastPollNanos = started;
+    }
+
+    private void trackGaps(long previous, long next, long now) {
+        if (next - previous - 1 + gaps.size() > MAX_GAPS) {
+            listeners.keySet().forEach(topic -> dispatch(topic, null));
+            return;
+        }
+        for (long missing = previous + 1; missing < next; missing++) {
+            gaps.put(missing, now + gapTimeoutNanos);
+        }
+    }
+
+    private void apply(Change change) {
+        if (change.origin().equals(nodeId)) {
+            return;
+        }
+        received.get(change.topic()).increment();
+        lag.record(Duration.between(change.createdAt(), LocalDateTime.now()));
+        dispatch(change.topic(), change.entityId());
+    }
+
+    private void dispatch(ChangeTopic topic, Long entityId) {
+        for (Consumer<Long> listener : listeners.get(topic)) {
+            listener.accept(entityId);
+        }
+    }
+
+    private static Change change(ResultSet rs) throws SQLException {
+        long entityId = rs.getLong("entity_id");
+        boolean wholeTopic = rs.wasNull();
+        return new Change(
+                rs.getLong("id"),
+                ChangeTopic.valueOf(rs.getString("topic")),
+                wholeTopic ? null : entityId,
+                rs.getString("origin"),
+                rs.getTimestamp("created_at").toLocalDateTime());
+    }
+
+    private record LogWrite(ChangeTopic topic, Long entityId, String origin, LocalDateTime createdAt) {}
+
+    private record Change(long id, ChangeTopic topic, Long entityId, String origin, LocalDateTime createdAt) {}
+}
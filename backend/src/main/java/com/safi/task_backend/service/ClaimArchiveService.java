@@ -0,0 +1,463 @@
+package com.safi.task_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safi.task_backend.config.SchedulingConfig;
+import com.safi.task_backend.dto.ArchivedClaim;
+import com.safi.task_backend.model.ClaimItem;
+import com.safi.task_backend.model.ColdStatusHistory;
+import com.safi.task_backend.model.ExpenseClaim;
+import com.safi.task_backend.model.Invoice;
+import com.safi.task_backend.model.StatusHistory;
+import com.safi.task_backend.model.enums.ClaimStatus;
+import com.safi.task_backend.repository.ColdStatusHistoryRepository;
+import com.safi.task_backend.repository.ExpenseClaimRepository;
+import com.safi.task_backend.repository.StatusHistoryRepository;
+import com.safi.task_backend.util.ArchiveSegment;
+import com.safi.task_backend.util.ShardContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class ClaimArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimArchiveService.class);
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final ExpenseClaimRepository claimRepository;
+    private final StatusHistoryRepository historyRepository;
+    private final ColdStatusHistoryRepository coldHistoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ShardRouter shards;
+    private final TransactionTemplate transaction;
+    private final boolean enabled;
+    private final Path directory;
+    private final Duration minAge;
+    private final int batchSize;
+    private final List<ArchiveSegment> segments = new CopyOnWriteArrayList<>();
+    private final Set<String> opened = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public ClaimArchiveService(
+            ExpenseClaimRepository claimRepository,
+            StatusHistoryRepository historyRepository,
+            ColdStatusHistoryRepository coldHistoryRepository,
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            ShardRouter shards,
+            PlatformTransactionManager transactionManager,
+            @Value("${archive.enabled:false}") boolean enabled,
+            @Value("${archive.dir:./data/archive}") String directory,
+            @Value("${archive.min-age:P90D}") Duration minAge,
+            @Value("${archive.batch-size:1000}") int batchSize) {
+        this.claimRepository = claimRepository;
+        this.historyRepository = historyRepository;
+        this.coldHistoryRepository = coldHistoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.shards = shards;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void openSegments() throws IOException {
+        Files.createDirectories(directory);
+        // on a shared directory only the archiving node may clear half-written segments
+        if (enabled) {
+            try (Stream<Path> listing = Files.list(directory)) {
+                for (Path file : listing.toList()) {
+                    if (file.getFileName().toString().endsWith(".tmp")) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+        }
+        openNewSegments();
+    }
+
+    @PreDestroy
+    public void closeSegments() throws IOException {
+        for (ArchiveSegment segment : segments) {
+            segment.close();
+        }
+    }
+
+    public Optional<ArchivedClaim> find(Long claimId) {
+        return resolve(segment -> segment.contains(claimId) ? Optional.of(claimId) : Optional.empty());
+    }
+
+    public Optional<ArchivedClaim> findByInvoiceId(Long invoiceId) {
+        return resolve(segment -> segment.idForSecondary(invoiceId));
+    }
+
+    public Optional<ArchivedClaim> findByReference(String referenceNumber) {
+        return resolve(segment -> segment.idForKey(referenceNumber));
+    }
+
+    public Map<String, Long> stockQuantities() {
+        Map<String, Long> quantities = new HashMap<>();
+        forEachArchived(claimId -> true, claim -> {
+            ArchivedClaim.ArchivedInvoice invoice = claim.invoice();
+            if (invoice == null || !invoice.stockApplied()) {
+                return;
+            }
+            for (ArchivedClaim.Line line : invoice.items()) {
+                if (line.quantity() != null) {
+                    quantities.merge(line.itemName().toLowerCase(Locale.ROOT), (long) line.quantity(), Long::sum);
+                }
+            }
+        });
+        return quantities;
+    }
+
+    // claims of the shard the caller is routed to; run it in the rebuild's transaction so live rows shadow them
+    // in the same snapshot
+    public long forEachArchivedOnShard(Consumer<ArchivedClaim> action) {
+        int shard = ShardContext.isHome() ? ShardContext.HOME_SHARD : ShardContext.current();
+        return forEachArchived(claimId -> shards.shardOf(claimId) == shard, action);
+    }
+
+    @Scheduled(fixedDelayString = "${archive.interval:PT1H}", scheduler = SchedulingConfig.JOBS)
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        Map<Integer, Supplier<Integer>> work = new TreeMap<>();
+        for (int shard = 0; shard < shards.shardCount(); shard++) {
+            work.put(shard, this::archiveShard);
+        }
+        int archived = shards.onShards(work).values().stream().mapToInt(Integer::intValue).sum();
+        if (archived > 0) {
+            log.info("Archived {} claims", archived);
+        }
+    }
+
+    // joins the caller's transaction, which must already be routed to the claim's shard
+    public void restore(ArchivedClaim claim) {
+        insert(claim);
+        jdbcTemplate.update(
+                "insert into restored_claims (claim_id, restored_at) values (?, ?)",
+                claim.id(),
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private int archiveShard() {
+        int archived = 0;
+        LocalDateTime cutoff = LocalDateTime.now().minus(minAge);
+        while (true) {
+            List<ArchivedClaim> batch = transaction.execute(status -> loadBatch(cutoff));
+            if (batch.isEmpty()) {
+                return archived;
+            }
+            segments.add(0, writeSegment(batch));
+            int deleted = transaction.execute(status -> deleteArchived(batch));
+            archived += deleted;
+            if (batch.size() < batchSize || deleted == 0) {
+                return archived;
+            }
+        }
+    }
+
+    private List<ArchivedClaim> loadBatch(LocalDateTime cutoff) {
+        List<Long> ids = claimRepository.findArchivable(ClaimStatus.INVOICED, cutoff, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<ArchivedClaim.HistoryEntry>> history = new HashMap<>();
+        for (ColdStatusHistory entry : coldHistoryRepository.findByClaimIdInOrderByIdAsc(ids)) {
+            history.computeIfAbsent(entry.getClaimId(), id -> new ArrayList<>()).add(toArchived(entry));
+        }
+        for (StatusHistory entry : historyRepository.findByClaimIdInOrderByIdAsc(ids)) {
+            history.computeIfAbsent(entry.getClaim().getId(), id -> new ArrayList<>()).add(toArchived(entry));
+        }
+        history.values().forEach(entries -> entries.sort(Comparator.comparing(ArchivedClaim.HistoryEntry::id)));
+        return claimRepository.findAllById(ids).stream()
+                .map(claim -> toArchived(claim, history.getOrDefault(claim.getId(), List.of())))
+                .toList();
+    }
+
+    private ArchiveSegment writeSegment(List<ArchivedClaim> batch) {
+        String name = "%s-%02d-%04d%s".formatted(
+                LocalDateTime.now().toString().replace(":", "").replace(".", ""),
+                shards.shardOf(batch.get(0).id()),
+                sequence.incrementAndGet() % 10000,
+                SEGMENT_SUFFIX);
+        Path file = directory.resolve(name);
+        opened.add(name);
+        List<ArchiveSegment.Record> records = batch.stream()
+                .map(claim -> new ArchiveSegment.Record(
+                        claim.id(), claim.invoice().id(), claim.referenceNumber(), write(claim)))
+                .toList();
+        try {
+            ArchiveSegment.write(file, records);
+            return ArchiveSegment.open(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write archive segment " + file, e);
+        }
+    }
+
+    // A claim that changed since it was read stays in the database; its archived copy is shadowed until re-archived.
+    private int deleteArchived(List<ArchivedClaim> batch) {
+        int deleted = 0;
+        for (ArchivedClaim archived : batch) {
+            ExpenseClaim claim = claimRepository.findById(archived.id()).orElse(null);
+            if (claim == null || !claim.getVersion().equals(archived.version())) {
+                continue;
+            }
+            jdbcTemplate.update("delete from status_history where claim_id = ?", claim.getId());
+            jdbcTemplate.update("delete from status_history_cold where claim_id = ?", claim.getId());
+            jdbcTemplate.update("delete from restored_claims where claim_id = ?", claim.getId());
+            claimRepository.delete(claim);
+            deleted++;
+        }
+        claimRepository.flush();
+        return deleted;
+    }
+
+    private void insert(ArchivedClaim claim) {
+        jdbcTemplate.update(
+                "insert into expense_claims (id, version, reference_number, claimant_name, description, status, tenant, "
+                        + "total_amount, created_at, updated_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                claim.id(), claim.version(), claim.referenceNumber(), claim.claimantName(), claim.description(),
+                claim.status().name(), claim.tenant(), claim.totalAmount(), timestamp(claim.createdAt()),
+                timestamp(claim.updatedAt()));
+        jdbcTemplate.batchUpdate(
+                "insert into claim_items (id, claim_id, item_name, quantity, unit_price) values (?, ?, ?, ?, ?)",
+                claim.items().stream()
+                        .map(item -> new Object[] {item.id(), claim.id(), item.itemName(), item.quantity(), item.unitPrice()})
+                        .toList());
+        ArchivedClaim.ArchivedInvoice invoice = claim.invoice();
+        jdbcTemplate.update(
+                "insert into invoices (id, version, invoice_number, claim_id, status, created_at, updated_at, approved_at, "
+                        + "subtotal, tax, total, stock_applied) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                invoice.id(), invoice.version(), invoice.invoiceNumber(), claim.id(), invoice.status().name(),
+                timestamp(invoice.createdAt()), timestamp(invoice.updatedAt()), timestamp(invoice.approvedAt()),
+                invoice.subtotal(), invoice.tax(), invoice.total(), invoice.stockApplied());
+        jdbcTemplate.batchUpdate(
+                "insert into invoice_items (id, invoice_id, item_name, quantity, unit_price, line_total) "
+                        + "values (?, ?, ?, ?, ?, ?)",
+                invoice.items().stream()
+                        .map(line -> new Object[] {
+                            line.id(), invoice.id(), line.itemName(), line.quantity(), line.unitPrice(), line.lineTotal()
+                        })
+                        .toList());
+        jdbcTemplate.batchUpdate(
+                "insert into status_history (id, claim_id, from_status, to_status, comment, created_at, snapshot, "
+                        + "journal_id) values (?, ?, ?, ?, ?, ?, ?, ?)",
+                claim.history().stream()
+                        .map(entry -> new Object[] {
+                            entry.id(), claim.id(),
+                            entry.fromStatus() != null ? entry.fromStatus().name() : null,
+                            entry.toStatus() != null ? entry.toStatus().name() : null,
+                            entry.comment(), timestamp(entry.createdAt()), entry.snapshot(), entry.journalId()
+                        })
+                        .toList());
+    }
+
+    private ArchivedClaim toArchived(ExpenseClaim claim, List<ArchivedClaim.HistoryEntry> history) {
+        Invoice invoice = claim.getInvoice();
+        return new ArchivedClaim(
+                claim.getId(),
+                claim.getVersion(),
+                claim.getReferenceNumber(),
+                claim.getClaimantName(),
+                claim.getDescription(),
+                claim.getStatus(),
+                claim.getTenant(),
+                claim.getTotalAmount(),
+                claim.getCreatedAt(),
+                claim.getUpdatedAt(),
+                claim.getItems().stream()
+                        .sorted(Comparator.comparing(ClaimItem::getId))
+                        .map(item -> new ArchivedClaim.Item(
+                                item.getId(), item.getItemName(), item.getQuantity(), item.getUnitPrice()))
+                        .toList(),
+                new ArchivedClaim.ArchivedInvoice(
+                        invoice.getId(),
+                        invoice.getVersion(),
+                        invoice.getInvoiceNumber(),
+                        invoice.getStatus(),
+                        invoice.getCreatedAt(),
+                        invoice.getUpdatedAt(),
+                        invoice.getApprovedAt(),
+                        invoice.getSubtotal(),
+                        invoice.getTax(),
+                        invoice.getTotal(),
+                        invoice.isStockApplied(),
+                        invoice.getItems().stream()
+                                .map(line -> new ArchivedClaim.Line(
+                                        line.getId(), line.getItemName(), line.getQuantity(), line.getUnitPrice(),
+                                        line.getLineTotal()))
+                                .toList()),
+                history);
+    }
+
+    private ArchivedClaim.HistoryEntry toArchived(StatusHistory entry) {
+        return new ArchivedClaim.HistoryEntry(
+                entry.getId(),
+                entry.getFromStatus(),
+                entry.getToStatus(),
+                entry.getComment(),
+                entry.getCreatedAt(),
+                entry.getSnapshot(),
+                entry.getJournalId());
+    }
+
+    private ArchivedClaim.HistoryEntry toArchived(ColdStatusHistory entry) {
+        return new ArchivedClaim.HistoryEntry(
+                entry.getId(),
+                entry.getFromStatus(),
+                entry.getToStatus(),
+                entry.getComment(),
+                entry.getCreatedAt(),
+                null,
+                entry.getJournalId());
+    }
+
+    private boolean isRestored(Long claimId) {
+        int shard = shards.shardOf(claimId);
+        return shards.onShards(Map.<Integer, Supplier<Boolean>>of(shard, () -> !jdbcTemplate.queryForList(
+                "select claim_id from restored_claims where claim_id = ?", Long.class, claimId).isEmpty()))
+                .get(shard);
+    }
+
+    private long forEachArchived(LongPredicate include, Consumer<ArchivedClaim> action) {
+        openNewSegments();
+        long visited = 0;
+        Set<Long> seen = new HashSet<>();
+        for (ArchiveSegment segment : segments) {
+            List<Long> pending = new ArrayList<>();
+            for (long id : segment.ids()) {
+                if (seen.add(id) && include.test(id)) {
+                    pending.add(id);
+                }
+            }
+            for (int from = 0; from < pending.size(); from += batchSize) {
+                List<Long> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+                Set<Long> shadowed = shadowedClaimIds(batch);
+                for (Long claimId : batch) {
+                    if (!shadowed.contains(claimId)) {
+                        action.accept(read(segment.find(claimId).orElseThrow()));
+                        visited++;
+                    }
+                }
+            }
+        }
+        return visited;
+    }
+
+    private Set<Long> shadowedClaimIds(List<Long> claimIds) {
+        Map<Integer, List<Long>> byShard = new TreeMap<>();
+        for (Long claimId : claimIds) {
+            byShard.computeIfAbsent(shards.shardOf(claimId), shard -> new ArrayList<>()).add(claimId);
+        }
+        Map<Integer, Supplier<List<Long>>> work = new TreeMap<>();
+        byShard.forEach((shard, ids) -> {
+            String in = String.join(", ", Collections.nCopies(ids.size(), "?"));
+            List<Object> args = new ArrayList<>(ids);
+            args.addAll(ids);
+            work.put(shard, () -> jdbcTemplate.queryForList(
+                    "select id from expense_claims where id in (" + in + ") "
+                            + "union select claim_id from restored_claims where claim_id in (" + in + ")",
+                    Long.class,
+                    args.toArray()));
+        });
+        Set<Long> shadowed = new HashSet<>();
+        shards.onShards(work).values().forEach(shadowed::addAll);
+        return shadowed;
+    }
+
+    // a miss rescans the directory once, so segments written by another node on a shared mount are picked up
+    private Optional<ArchivedClaim> resolve(Function<ArchiveSegment, Optional<Long>> lookup) {
+        for (int pass = 0; pass < 2; pass++) {
+            for (ArchiveSegment segment : segments) {
+                Optional<Long> claimId = lookup.apply(segment);
+                if (claimId.isPresent()) {
+                    return isRestored(claimId.get()) ? Optional.empty() : segment.find(claimId.get()).map(this::read);
+                }
+            }
+            if (!openNewSegments()) {
+                break;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private synchronized boolean openNewSegments() {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing
+                    .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .filter(file -> !opened.contains(file.getFileName().toString()))
+                    .sorted(Comparator.comparing((Path file) -> file.getFileName().toString()))
+                    .toList();
+            for (Path file : files) {
+                segments.add(0, ArchiveSegment.open(file));
+                opened.add(file.getFileName().toString());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open archive segments in " + directory, e);
+        }
+        return !files.isEmpty();
+    }
+
+    private byte[] write(ArchivedClaim claim) {
+        try {
+            return objectMapper.writeValueAsBytes(claim);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize claim " + claim.id(), e);
+        }
+    }
+
+    private ArchivedClaim read(byte[] payload) {
+        try {
+            return objectMapper.readValue(payload, ArchivedClaim.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read archived claim", e);
+        }
+    }
+
+    private static Timestamp timestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+}
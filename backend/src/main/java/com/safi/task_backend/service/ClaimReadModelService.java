@@ -0,0 +1,191 @@
+package com.safi.task_backend.service;
+
+import com.safi.task_backend.dto.ArchivedClaim;
+import com.safi.task_backend.dto.ClaimSummaryResponse;
+import com.safi.task_backend.dto.PageResponse;
+import com.safi.task_backend.dto.ReadModelRebuildResponse;
+import com.safi.task_backend.model.ClaimReadModel;
+import com.safi.task_backend.model.ExpenseClaim;
+import com.safi.task_backend.model.enums.ClaimStatus;
+import com.safi.task_backend.model.enums.InvoiceStatus;
+import com.safi.task_backend.repository.ClaimReadModelRepository;
+import com.safi.task_backend.repository.ExpenseClaimRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ClaimReadModelService {
+
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    private final ClaimReadModelRepository readModelRepository;
+    private final ExpenseClaimRepository claimRepository;
+    private final ShardRouter shards;
+    private final ClaimArchiveService archive;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ClaimReadModelService(
+            ClaimReadModelRepository readModelRepository,
+            ExpenseClaimRepository claimRepository,
+            ShardRouter shards,
+            ClaimArchiveService archive) {
+        this.readModelRepository = readModelRepository;
+        this.claimRepository = claimRepository;
+        this.shards = shards;
+        this.archive = archive;
+    }
+
+    @Transactional
+    public void project(ExpenseClaim claim, LocalDateTime transitionedAt) {
+        ClaimReadModel row = readModelRepository.findById(claim.getId()).orElse(null);
+        boolean created = row == null;
+        if (created) {
+            row = new ClaimReadModel();
+            row.setClaimId(claim.getId());
+            row.setCreatedAt(claim.getCreatedAt());
+            row.setLastTransitionAt(claim.getCreatedAt());
+        }
+        row.setReferenceNumber(claim.getReferenceNumber());
+        row.setClaimantName(claim.getClaimantName());
+        row.setStatus(claim.getStatus());
+        row.setTenant(claim.getTenant());
+        row.setTotalAmount(claim.getTotalAmount());
+        row.setItemCount(claim.getItems().size());
+        row.setInvoiceId(claim.getInvoice() != null ? claim.getInvoice().getId() : null);
+        row.setInvoiceStatus(claim.getInvoice() != null ? claim.getInvoice().getStatus() : null);
+        if (transitionedAt != null) {
+            row.setLastTransitionAt(transitionedAt);
+        }
+        if (created) {
+            entityManager.persist(row);
+        }
+    }
+
+    @Transactional
+    public void invoiceStatusChanged(Collection<Long> invoiceIds, InvoiceStatus status) {
+        if (!invoiceIds.isEmpty()) {
+            readModelRepository.updateInvoiceStatus(invoiceIds, status);
+        }
+    }
+
+    public PageResponse<ClaimSummaryResponse> search(
+            ClaimStatus status, String tenant, InvoiceStatus invoiceStatus, String claimant, int page, int size) {
+        String claimantPrefix = claimant == null || claimant.isBlank() ? null : claimant;
+        return shards.scatterPage(
+                page,
+                size,
+                Sort.unsorted(),
+                Comparator.comparing(ClaimSummaryResponse::createdAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                        .thenComparing(ClaimSummaryResponse::claimId, Comparator.reverseOrder()),
+                pageable -> readModelRepository
+                        .search(status, tenant, invoiceStatus, claimantPrefix, pageable)
+                        .map(this::toSummary));
+    }
+
+    @Transactional
+    public ReadModelRebuildResponse rebuild() {
+        long projected = shards.forEachShard(this::rebuildShard).stream().mapToLong(Long::longValue).sum();
+        return new ReadModelRebuildResponse(projected);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void seedIfEmpty() {
+        shards.forEachShard(() -> {
+            if (readModelRepository.count() == 0) {
+                return rebuildShard();
+            }
+            return 0L;
+        });
+    }
+
+    private long rebuildShard() {
+        readModelRepository.deleteAllInBatch();
+        long projected = 0;
+        Pageable page = PageRequest.of(0, REBUILD_PAGE_SIZE, Sort.by("id"));
+        Slice<Object[]> claims;
+        do {
+            claims = claimRepository.scanReadModelFacts(page);
+            for (Object[] fact : claims) {
+                ClaimReadModel row = new ClaimReadModel();
+                row.setClaimId((Long) fact[0]);
+                row.setReferenceNumber((String) fact[1]);
+                row.setClaimantName((String) fact[2]);
+                row.setStatus((ClaimStatus) fact[3]);
+                row.setTenant((String) fact[4]);
+                row.setTotalAmount(fact[5] != null ? (BigDecimal) fact[5] : BigDecimal.ZERO);
+                row.setItemCount(((Number) fact[6]).intValue());
+                row.setInvoiceId((Long) fact[7]);
+                row.setInvoiceStatus((InvoiceStatus) fact[8]);
+                row.setCreatedAt((LocalDateTime) fact[9]);
+                row.setLastTransitionAt(fact[10] != null ? (LocalDateTime) fact[10] : (LocalDateTime) fact[9]);
+                entityManager.persist(row);
+                projected++;
+            }
+            entityManager.flush();
+            entityManager.clear();
+            page = claims.nextPageable();
+        } while (claims.hasNext());
+        // archived claims keep their rows, as they do under incremental projection
+        long[] persisted = new long[1];
+        projected += archive.forEachArchivedOnShard(claim -> {
+            entityManager.persist(toRow(claim));
+            if (++persisted[0] % REBUILD_PAGE_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        });
+        entityManager.flush();
+        entityManager.clear();
+        return projected;
+    }
+
+    private ClaimReadModel toRow(ArchivedClaim claim) {
+        ClaimReadModel row = new ClaimReadModel();
+        row.setClaimId(claim.id());
+        row.setReferenceNumber(claim.referenceNumber());
+        row.setClaimantName(claim.claimantName());
+        row.setStatus(claim.status());
+        row.setTenant(claim.tenant());
+        row.setTotalAmount(claim.totalAmount() != null ? claim.totalAmount() : BigDecimal.ZERO);
+        row.setItemCount(claim.items().size());
+        row.setInvoiceId(claim.invoice().id());
+        row.setInvoiceStatus(claim.invoice().status());
+        row.setCreatedAt(claim.createdAt());
+        row.setLastTransitionAt(claim.history().stream()
+                .filter(entry -> entry.fromStatus() != entry.toStatus())
+                .map(ArchivedClaim.HistoryEntry::createdAt)
+                .max(Comparator.naturalOrder())
+                .orElse(claim.createdAt()));
+        return row;
+    }
+
+    private ClaimSummaryResponse toSummary(ClaimReadModel row) {
+        return new ClaimSummaryResponse(
+                row.getClaimId(),
+                row.getReferenceNumber(),
+                row.getClaimantName(),
+                row.getStatus(),
+                row.getTenant(),
+                row.getTotalAmount(),
+                row.getItemCount(),
+                row.getInvoiceId(),
+                row.getInvoiceStatus(),
+                row.getCreatedAt(),
+                row.getLastTransitionAt());
+    }
+}
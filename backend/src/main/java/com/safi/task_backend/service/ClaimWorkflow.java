@@ -1,43 +1,122 @@
 package com.safi.task_backend.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.safi.task_backend.model.enums.ClaimStatus;
-import java.util.EnumMap;
-import java.util.EnumSet;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
 import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 @Component
 public class ClaimWorkflow {
 
-    private final Map<ClaimStatus, Set<ClaimStatus>> transitions = new EnumMap<>(ClaimStatus.class);
+    public static final String DEFAULT_WORKFLOW = "default";
 
-    public ClaimWorkflow() {
-        transitions.put(ClaimStatus.DRAFT, EnumSet.of(ClaimStatus.DRAFT, ClaimStatus.SUBMITTED));
-        transitions.put(ClaimStatus.SUBMITTED, EnumSet.of(ClaimStatus.DRAFT, ClaimStatus.UNDER_REVIEW));
-        transitions.put(ClaimStatus.UNDER_REVIEW, EnumSet.of(ClaimStatus.SUBMITTED, ClaimStatus.APPROVED));
-        transitions.put(ClaimStatus.APPROVED, EnumSet.of(ClaimStatus.UNDER_REVIEW, ClaimStatus.INVOICED));
-        transitions.put(ClaimStatus.INVOICED, EnumSet.of(ClaimStatus.APPROVED));
+    private static final Logger log = LoggerFactory.getLogger(ClaimWorkflow.class);
+
+    private final ObjectMapper objectMapper;
+    private final Resource definitions;
+    private volatile Loaded loaded;
+    private volatile long loadedModified;
+
+    public ClaimWorkflow(
+            ObjectMapper objectMapper,
+            ResourceLoader resourceLoader,
+            @Value("${workflow.definitions:classpath:workflows.json}") String location) {
+        this.objectMapper = objectMapper;
+        this.definitions = resourceLoader.getResource(location);
+        this.loadedModified = lastModified();
+        this.loaded = load();
+    }
+
+    public boolean isTransitionAllowed(String tenant, ClaimStatus current, ClaimStatus target) {
+        return resolve(tenant).isAllowed(current, target);
+    }
+
+    public Set<ClaimStatus> allowedTargets(String tenant, ClaimStatus current) {
+        return resolve(tenant).targets(current);
+    }
+
+    public boolean isBackward(String tenant, ClaimStatus current, ClaimStatus target) {
+        return resolve(tenant).isBackward(current, target);
+    }
+
+    public boolean hasWorkflow(String tenant) {
+        return loaded.workflows().containsKey(tenant);
+    }
+
+    public String fingerprint() {
+        return loaded.fingerprint();
     }
 
-    public boolean isTransitionAllowed(ClaimStatus current, ClaimStatus target) {
-        return transitions.getOrDefault(current, Set.of()).contains(target);
+    @Scheduled(fixedDelayString = "${workflow.reload-interval:PT30S}")
+    public void reloadIfChanged() {
+        long modified = lastModified();
+        if (modified == loadedModified) {
+            return;
+        }
+        try {
+            loaded = load();
+            loadedModified = modified;
+            log.info("Reloaded claim workflows from {}", definitions);
+        } catch (RuntimeException e) {
+            log.warn("Keeping previous claim workflows; {} could not be compiled", definitions, e);
+        }
     }
 
-    public Set<ClaimStatus> allowedTargets(ClaimStatus current) {
-        return transitions.getOrDefault(current, Set.of());
+    private CompiledWorkflow resolve(String tenant) {
+        Map<String, CompiledWorkflow> current = loaded.workflows();
+        CompiledWorkflow workflow = tenant != null ? current.get(tenant) : null;
+        return workflow != null ? workflow : current.get(DEFAULT_WORKFLOW);
     }
 
-    public boolean isBackward(ClaimStatus current, ClaimStatus target) {
-        if (current == target) {
-            return false;
+    private Loaded load() {
+        byte[] content;
+        Map<String, WorkflowDefinition> parsed;
+        try (InputStream in = definitions.getInputStream()) {
+            content = in.readAllBytes();
+            parsed = objectMapper.readValue(content, new TypeReference<Map<String, WorkflowDefinition>>() {});
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read claim workflows from " + definitions, e);
         }
-        return switch (current) {
-            case DRAFT -> false;
-            case SUBMITTED -> target == ClaimStatus.DRAFT;
-            case UNDER_REVIEW -> target == ClaimStatus.SUBMITTED;
-            case APPROVED -> target == ClaimStatus.UNDER_REVIEW;
-            case INVOICED -> target == ClaimStatus.APPROVED;
-        };
+        if (!parsed.containsKey(DEFAULT_WORKFLOW)) {
+            throw new IllegalStateException("Claim workflows must define a '" + DEFAULT_WORKFLOW + "' workflow");
+        }
+        parsed.forEach(CompiledWorkflow::validate);
+        Map<String, CompiledWorkflow> compiled = new HashMap<>();
+        parsed.forEach((name, definition) -> compiled.put(name, CompiledWorkflow.compile(name, definition)));
+        return new Loaded(Map.copyOf(compiled), fingerprint(content));
     }
+
+    private static String fingerprint(byte[] content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Resources packed inside a jar have no usable timestamp; those are simply never reloaded.
+    private long lastModified() {
+        try {
+            return definitions.lastModified();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private record Loaded(Map<String, CompiledWorkflow> workflows, String fingerprint) {}
 }
@@ -0,0 +1,123 @@
+package com.safi.task_backend.service;
+
+import com.safi.task_backend.model.enums.ClaimStatus;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+final class CompiledWorkflow {
+
+    private final int size;
+    private final int words;
+    private final long[] allowed;
+    private final long[] backward;
+    private final List<Set<ClaimStatus>> targets;
+
+    private CompiledWorkflow(int size, long[] allowed, long[] backward, List<Set<ClaimStatus>> targets) {
+        this.size = size;
+        this.words = (size + 63) >>> 6;
+        this.allowed = allowed;
+        this.backward = backward;
+        this.targets = targets;
+    }
+
+    // Checks a definition without registering anything, so a reload that fails leaves the status registry untouched.
+    static void validate(String name, WorkflowDefinition definition) {
+        if (definition.states() == null || !definition.states().contains(ClaimStatus.DRAFT.name())) {
+            throw new IllegalStateException("Workflow '" + name + "' must declare a DRAFT state");
+        }
+        Set<String> states = new HashSet<>();
+        for (String state : definition.states()) {
+            if (!ClaimStatus.isValidName(state)) {
+                throw new IllegalStateException("Workflow '" + name + "' declares invalid state " + state);
+            }
+            if (!states.add(state)) {
+                throw new IllegalStateException("Workflow '" + name + "' declares " + state + " twice");
+            }
+        }
+        Map<String, List<String>> transitions = definition.transitions() != null ? definition.transitions() : Map.of();
+        transitions.forEach((from, targets) -> {
+            for (String state : concat(from, targets)) {
+                if (!states.contains(state)) {
+                    throw new IllegalStateException("Workflow '" + name + "' uses undeclared state " + state);
+                }
+            }
+        });
+    }
+
+    static CompiledWorkflow compile(String name, WorkflowDefinition definition) {
+        validate(name, definition);
+        Map<String, ClaimStatus> declared = new HashMap<>();
+        Map<ClaimStatus, Integer> position = new HashMap<>();
+        for (String state : definition.states()) {
+            ClaimStatus status = ClaimStatus.register(state);
+            position.put(status, position.size());
+            declared.put(state, status);
+        }
+        int size = ClaimStatus.count();
+        int words = (size + 63) >>> 6;
+        long[] allowed = new long[size * words];
+        long[] backward = new long[size * words];
+        List<Set<ClaimStatus>> targets = new ArrayList<>(Collections.nCopies(size, Set.of()));
+        Map<String, List<String>> transitions = definition.transitions() != null ? definition.transitions() : Map.of();
+        transitions.forEach((fromName, targetNames) -> {
+            ClaimStatus from = lookup(name, declared, fromName);
+            Set<ClaimStatus> rowTargets = new TreeSet<>();
+            for (String targetName : targetNames) {
+                ClaimStatus target = lookup(name, declared, targetName);
+                int index = from.ordinal() * words + (target.ordinal() >>> 6);
+                allowed[index] |= 1L << target.ordinal();
+                if (position.get(target) < position.get(from)) {
+                    backward[index] |= 1L << target.ordinal();
+                }
+                rowTargets.add(target);
+            }
+            targets.set(from.ordinal(), Collections.unmodifiableSet(new LinkedHashSet<>(rowTargets)));
+        });
+        return new CompiledWorkflow(size, allowed, backward, List.copyOf(targets));
+    }
+
+    boolean isAllowed(ClaimStatus from, ClaimStatus to) {
+        return test(allowed, from, to);
+    }
+
+    boolean isBackward(ClaimStatus from, ClaimStatus to) {
+        return test(backward, from, to);
+    }
+
+    Set<ClaimStatus> targets(ClaimStatus from) {
+        return from.ordinal() < size ? targets.get(from.ordinal()) : Set.of();
+    }
+
+    private boolean test(long[] table, ClaimStatus from, ClaimStatus to) {
+        int row = from.ordinal();
+        int column = to.ordinal();
+        if (row >= size || column >= size) {
+            return false;
+        }
+        return (table[row * words + (column >>> 6)] & (1L << column)) != 0;
+    }
+
+    private static List<String> concat(String from, List<String> targets) {
+        List<String> states = new ArrayList<>();
+        states.add(from);
+        if (targets != null) {
+            states.addAll(targets);
+        }
+        return states;
+    }
+
+    private static ClaimStatus lookup(String name, Map<String, ClaimStatus> declared, String state) {
+        ClaimStatus status = declared.get(state);
+        if (status == null) {
+            throw new IllegalStateException("Workflow '" + name + "' uses undeclared state " + state);
+        }
+        return status;
+    }
+}
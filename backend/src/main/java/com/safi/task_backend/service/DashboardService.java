@@ -1,44 +1,58 @@
 package com.safi.task_backend.service;
 
 import com.safi.task_backend.dto.DashboardMetrics;
+import com.safi.task_backend.model.enums.ChangeTopic;
 import com.safi.task_backend.model.enums.ClaimStatus;
 import com.safi.task_backend.model.enums.InvoiceStatus;
-import com.safi.task_backend.repository.ExpenseClaimRepository;
-import com.safi.task_backend.repository.InvoiceRepository;
+import com.safi.task_backend.repository.ClaimReadModelRepository;
 import com.safi.task_backend.repository.StockSummaryRepository;
+import com.safi.task_backend.util.LocalCache;
+import com.safi.task_backend.util.SingleFlight;
 import java.math.BigDecimal;
-import java.util.EnumSet;
+import java.util.Set;
 import org.springframework.stereotype.Service;
 
 @Service
 public class DashboardService {
 
-    private static final EnumSet<ClaimStatus> PENDING_STATUSES =
-            EnumSet.of(ClaimStatus.DRAFT, ClaimStatus.SUBMITTED, ClaimStatus.UNDER_REVIEW);
+    private static final Set<ClaimStatus> SETTLED_STATUSES = Set.of(ClaimStatus.APPROVED, ClaimStatus.INVOICED);
 
-    private final ExpenseClaimRepository claimRepository;
-    private final InvoiceRepository invoiceRepository;
+    private final ClaimReadModelRepository readModelRepository;
     private final StockSummaryRepository stockSummaryRepository;
+    private final ShardRouter shards;
+    private final SingleFlight<String, DashboardMetrics> metricsLoads;
+    private final LocalCache<String, DashboardMetrics> metricsCache;
 
     public DashboardService(
-            ExpenseClaimRepository claimRepository,
-            InvoiceRepository invoiceRepository,
-            StockSummaryRepository stockSummaryRepository) {
-        this.claimRepository = claimRepository;
-        this.invoiceRepository = invoiceRepository;
+            ClaimReadModelRepository readModelRepository,
+            StockSummaryRepository stockSummaryRepository,
+            ShardRouter shards,
+            RequestCoalescer coalescer,
+            ChangeBus changes) {
+        this.readModelRepository = readModelRepository;
         this.stockSummaryRepository = stockSummaryRepository;
+        this.shards = shards;
+        this.metricsLoads = coalescer.flight("dashboard");
+        this.metricsCache = changes.derivedCache(ChangeTopic.CLAIM, ChangeTopic.INVOICE, ChangeTopic.STOCK);
     }
 
     public DashboardMetrics getMetrics() {
-        long totalClaims = claimRepository.count();
-        long pendingClaims = claimRepository.countByStatusIn(PENDING_STATUSES);
-        BigDecimal totalClaimValue = claimRepository.sumTotalAmount();
-        if (totalClaimValue == null) {
-            totalClaimValue = BigDecimal.ZERO;
-        }
+        return metricsCache.get("metrics", () -> metricsLoads.run("metrics", this::loadMetrics));
+    }
 
-        long invoicesAwaitingApproval = invoiceRepository.countByStatus(InvoiceStatus.DRAFT);
-        long approvedInvoices = invoiceRepository.countByStatus(InvoiceStatus.APPROVED);
+    private DashboardMetrics loadMetrics() {
+        long totalClaims = 0;
+        long pendingClaims = 0;
+        BigDecimal totalClaimValue = BigDecimal.ZERO;
+        long invoicesAwaitingApproval = 0;
+        long approvedInvoices = 0;
+        for (ShardCounts counts : shards.scatter(this::shardCounts)) {
+            totalClaims += counts.totalClaims();
+            pendingClaims += counts.pendingClaims();
+            totalClaimValue = totalClaimValue.add(counts.totalClaimValue());
+            invoicesAwaitingApproval += counts.invoicesAwaitingApproval();
+            approvedInvoices += counts.approvedInvoices();
+        }
         long invoiceTotal = invoicesAwaitingApproval + approvedInvoices;
         int approvalRate = invoiceTotal == 0 ? 0 : (int) Math.round((approvedInvoices * 100.0) / invoiceTotal);
 
@@ -52,4 +66,21 @@ public class DashboardService {
                 approvalRate,
                 stockTracked);
     }
+
+    private ShardCounts shardCounts() {
+        BigDecimal totalClaimValue = readModelRepository.sumTotalAmount();
+        return new ShardCounts(
+                readModelRepository.count(),
+                readModelRepository.countByStatusNotIn(SETTLED_STATUSES),
+                totalClaimValue == null ? BigDecimal.ZERO : totalClaimValue,
+                readModelRepository.countByInvoiceStatus(InvoiceStatus.DRAFT),
+                readModelRepository.countByInvoiceStatus(InvoiceStatus.APPROVED));
+    }
+
+    private record ShardCounts(
+            long totalClaims,
+            long pendingClaims,
+            BigDecimal totalClaimValue,
+            long invoicesAwaitingApproval,
+            long approvedInvoices) {}
 }
@@ -1,57 +1,131 @@
 package com.safi.task_backend.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safi.task_backend.dto.ArchivedClaim;
 import com.safi.task_backend.dto.ClaimItemDto;
 import com.safi.task_backend.dto.ClaimTransitionRequest;
 import com.safi.task_backend.dto.ExpenseClaimRequest;
 import com.safi.task_backend.dto.ExpenseClaimResponse;
 import com.safi.task_backend.dto.PageResponse;
 import com.safi.task_backend.dto.StatusHistoryResponse;
-import com.safi.task_backend.model.ClaimItem;
 import com.safi.task_backend.model.ExpenseClaim;
 import com.safi.task_backend.model.Invoice;
-import com.safi.task_backend.model.StatusHistory;
+import com.safi.task_backend.model.enums.ChangeTopic;
 import com.safi.task_backend.model.enums.ClaimStatus;
 import com.safi.task_backend.repository.ExpenseClaimRepository;
-import com.safi.task_backend.repository.StatusHistoryRepository;
 import com.safi.task_backend.service.mapper.ClaimSnapshot;
 import com.safi.task_backend.service.mapper.ClaimSnapshotMapper;
+import com.safi.task_backend.util.ETags;
+import com.safi.task_backend.util.FieldSelection;
+import com.safi.task_backend.util.LocalCache;
 import com.safi.task_backend.util.ReferenceGenerator;
+import com.safi.task_backend.util.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.criteria.JoinType;
 import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class ExpenseClaimService {
 
+    private static final Map<String, SparseFieldQuery.Column<ExpenseClaim>> LIST_COLUMNS = Map.ofEntries(
+            Map.entry("id", root -> root.get("id")),
+            Map.entry("referenceNumber", root -> root.get("referenceNumber")),
+            Map.entry("claimantName", root -> root.get("claimantName")),
+            Map.entry("description", root -> root.get("description")),
+            Map.entry("status", root -> root.get("status")),
+            Map.entry("totalAmount", root -> root.get("totalAmount")),
+            Map.entry("createdAt", root -> root.get("createdAt")),
+            Map.entry("updatedAt", root -> root.get("updatedAt")),
+            Map.entry("invoiceId", root -> root.join("invoice", JoinType.LEFT).get("id")),
+            Map.entry("tenant", root -> root.get("tenant")),
+            Map.entry("version", root -> root.get("version")));
+    private static final Set<String> LIST_FIELDS = Set.of(
+            "id", "referenceNumber", "claimantName", "description", "status", "totalAmount", "createdAt",
+            "updatedAt", "items", "allowedTransitions", "invoiceId", "tenant", "version");
+    private static final Map<String, List<String>> LIST_VIEWS = Map.of(
+            "summary",
+            List.of("id", "referenceNumber", "claimantName", "status", "totalAmount", "createdAt", "invoiceId"));
+
     private final ExpenseClaimRepository claimRepository;
-    private final StatusHistoryRepository historyRepository;
+    private final StatusHistoryWriter historyWriter;
     private final ClaimWorkflow workflow;
     private final InvoiceService invoiceService;
-    private final ObjectMapper objectMapper;
+    private final AnalyticsService analyticsService;
+    private final ClaimReadModelService readModel;
+    private final ShardRouter shards;
+    private final TransactionTemplate transitionTransaction;
+    private final int transitionMaxAttempts;
+    private final Counter transitionRetries;
+    private final Counter transitionConflicts;
+    private final SingleFlight<String, ExpenseClaimResponse> claimLoads;
+    private final ClaimArchiveService archive;
+    private final IdempotencyService idempotencyService;
+    private final SparseFieldQuery sparseQuery;
+    private final ChangeBus changes;
+    private final LocalCache<Long, CachedClaim> claimCache;
 
     public ExpenseClaimService(
             ExpenseClaimRepository claimRepository,
-            StatusHistoryRepository historyRepository,
+            StatusHistoryWriter historyWriter,
             ClaimWorkflow workflow,
             InvoiceService invoiceService,
-            ObjectMapper objectMapper) {
+            AnalyticsService analyticsService,
+            ClaimReadModelService readModel,
+            ShardRouter shards,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            RequestCoalescer coalescer,
+            ClaimArchiveService archive,
+            IdempotencyService idempotencyService,
+            SparseFieldQuery sparseQuery,
+            ChangeBus changes,
+            @Value("${claims.transition.max-attempts:3}") int transitionMaxAttempts) {
         this.claimRepository = claimRepository;
-        this.historyRepository = historyRepository;
+        this.historyWriter = historyWriter;
         this.workflow = workflow;
         this.invoiceService = invoiceService;
-        this.objectMapper = objectMapper;
+        this.analyticsService = analyticsService;
+        this.readModel = readModel;
+        this.shards = shards;
+        this.transitionTransaction = new TransactionTemplate(transactionManager);
+        this.transitionMaxAttempts = transitionMaxAttempts;
+        this.transitionRetries = Counter.builder("claims.transition.retries").register(meterRegistry);
+        this.transitionConflicts = Counter.builder("claims.transition.conflicts").register(meterRegistry);
+        this.claimLoads = coalescer.flight("claim");
+        this.archive = archive;
+        this.idempotencyService = idempotencyService;
+        this.sparseQuery = sparseQuery;
+        this.changes = changes;
+        this.claimCache = changes.entityCache(ChangeTopic.CLAIM);
     }
 
     @Transactional
-    public ExpenseClaimResponse createClaim(ExpenseClaimRequest request) {
+    public ExpenseClaimResponse createClaim(ExpenseClaimRequest request, String tenant) {
+        if (tenant != null && !workflow.hasWorkflow(tenant)) {
+            throw new IllegalArgumentException("No workflow is configured for tenant " + tenant);
+        }
         ExpenseClaim claim = new ExpenseClaim();
+        claim.setTenant(tenant);
         claim.setReferenceNumber(ReferenceGenerator.claimReference());
         claim.setClaimantName(request.claimantName());
         claim.setDescription(request.description());
@@ -59,117 +133,265 @@ public class ExpenseClaimService {
         claim.setUpdatedAt(LocalDateTime.now());
         applyItems(claim, request.items());
         claimRepository.save(claim);
-        recordHistory(claim, ClaimStatus.DRAFT, ClaimStatus.DRAFT, "Claim created");
+        analyticsService.recordClaimChange(
+                claim.getCreatedAt(), null, BigDecimal.ZERO, ClaimStatus.DRAFT, claim.getTotalAmount());
+        historyWriter.record(claim, ClaimStatus.DRAFT, ClaimStatus.DRAFT, "Claim created");
+        readModel.project(claim, claim.getCreatedAt());
+        changes.publish(ChangeTopic.CLAIM, claim.getId());
         return mapToResponse(claim);
     }
 
     @Transactional
-    public ExpenseClaimResponse updateClaim(Long id, ExpenseClaimRequest request) {
+    public ExpenseClaimResponse updateClaim(Long id, ExpenseClaimRequest request, String ifMatch) {
         ExpenseClaim claim = getClaimEntity(id);
+        requireMatch(claim, ifMatch);
         if (claim.getStatus() != ClaimStatus.DRAFT) {
             throw new IllegalStateException("Only draft claims can be edited");
         }
+        BigDecimal previousTotal = claim.getTotalAmount();
         claim.setClaimantName(request.claimantName());
         claim.setDescription(request.description());
         applyItems(claim, request.items());
         claim.setUpdatedAt(LocalDateTime.now());
         claimRepository.save(claim);
-        recordHistory(claim, ClaimStatus.DRAFT, ClaimStatus.DRAFT, "Draft updated");
+        analyticsService.recordClaimChange(
+                claim.getCreatedAt(), ClaimStatus.DRAFT, previousTotal, ClaimStatus.DRAFT, claim.getTotalAmount());
+        historyWriter.record(claim, ClaimStatus.DRAFT, ClaimStatus.DRAFT, "Draft updated");
+        readModel.project(claim, null);
+        changes.publish(ChangeTopic.CLAIM, claim.getId());
+        claimRepository.flush();
         return mapToResponse(claim);
     }
 
     public ExpenseClaimResponse getClaim(Long id) {
-        return mapToResponse(getClaimEntity(id));
+        CachedClaim cached = cachedClaim(id);
+        if (cached != null) {
+            return cached.response();
+        }
+        return claimCache.get(id, () -> {
+            String fingerprint = workflow.fingerprint();
+            return new CachedClaim(fingerprint, claimLoads.run(etag(id), () -> claimRepository
+                    .findById(id)
+                    .map(this::mapToResponse)
+                    .or(() -> archive.find(id).map(this::mapArchived))
+                    .orElseThrow(() -> new IllegalArgumentException("Claim not found"))));
+        }).response();
+    }
+
+    public String etag(Long id) {
+        CachedClaim cached = cachedClaim(id);
+        if (cached != null) {
+            return etag(cached.response());
+        }
+        List<Long> versions = claimRepository.findVersionById(id);
+        if (versions.isEmpty()) {
+            return archive.find(id)
+                    .map(archived -> etag(id, archived.version()))
+                    .orElseThrow(() -> new IllegalArgumentException("Claim not found"));
+        }
+        return etag(id, versions.get(0));
+    }
+
+    public String etag(ExpenseClaimResponse claim) {
+        return etag(claim.id(), claim.version());
+    }
+
+    public String listETag(int page, int size) {
+        return listETag(page, size, null);
+    }
+
+    public String listETag(int page, int size, FieldSelection fields) {
+        PageResponse<Object[]> rows = shards.scatterPage(
+                page,
+                size,
+                Sort.by(Sort.Direction.DESC, "createdAt", "id"),
+                ETags.NEWEST_FIRST,
+                claimRepository::findVersions);
+        return fields == null
+                ? ETags.page("claims", rows.totalElements(), rows.content(), "w" + workflow.fingerprint())
+                : ETags.page("claims", rows.totalElements(), rows.content(), "w" + workflow.fingerprint(), fields);
     }
 
     public PageResponse<ExpenseClaimResponse> listClaims(int page, int size) {
-        Page<ExpenseClaim> claims = claimRepository.findAll(PageRequest.of(page, size));
-        List<ExpenseClaimResponse> content = claims.stream().map(this::mapToResponse).toList();
-        return new PageResponse<>(content, claims.getTotalElements(), claims.getTotalPages(), page, size);
+        return shards.scatterPage(
+                page,
+                size,
+                Sort.by(Sort.Direction.DESC, "createdAt", "id"),
+                Comparator.comparing(ExpenseClaimResponse::createdAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                        .thenComparing(ExpenseClaimResponse::id, Comparator.reverseOrder()),
+                pageable -> claimRepository.findAll(pageable).map(this::mapToResponse));
     }
 
-    @Transactional
-    public ExpenseClaimResponse transition(Long id, ClaimTransitionRequest request) {
-        ExpenseClaim claim = getClaimEntity(id);
+    public FieldSelection listFields(String fields, String view) {
+        return FieldSelection.parse(fields, view, LIST_VIEWS, LIST_FIELDS);
+    }
+
+    public PageResponse<Map<String, Object>> listClaims(int page, int size, FieldSelection fields) {
+        Set<String> columns = new LinkedHashSet<>(List.of("id", "createdAt"));
+        for (String name : fields.names()) {
+            if (LIST_COLUMNS.containsKey(name)) {
+                columns.add(name);
+            }
+        }
+        if (fields.includes("allowedTransitions")) {
+            columns.add("status");
+            columns.add("tenant");
+        }
+        PageResponse<Map<String, Object>> rows = shards.scatterPage(
+                page,
+                size,
+                Sort.by(Sort.Direction.DESC, "createdAt", "id"),
+                SparseFieldQuery.NEWEST_FIRST,
+                pageable -> {
+                    Page<Map<String, Object>> result = sparseQuery.page(ExpenseClaim.class, LIST_COLUMNS, columns, pageable);
+                    if (fields.includes("items")) {
+                        attachItems(result.getContent());
+                    }
+                    return result;
+                });
+        List<Map<String, Object>> content = new ArrayList<>(rows.content().size());
+        for (Map<String, Object> row : rows.content()) {
+            if (fields.includes("allowedTransitions")) {
+                row.put("allowedTransitions",
+                        workflow.allowedTargets((String) row.get("tenant"), (ClaimStatus) row.get("status")));
+            }
+            content.add(fields.project(row));
+        }
+        return new PageResponse<>(content, rows.totalElements(), rows.totalPages(), rows.page(), rows.size());
+    }
+
+    private void attachItems(List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<Long, List<ClaimItemDto>> items = new HashMap<>();
+        List<Long> ids = rows.stream().map(row -> (Long) row.get("id")).toList();
+        for (Object[] item : claimRepository.findItemRows(ids)) {
+            items.computeIfAbsent((Long) item[0], id -> new ArrayList<>())
+                    .add(new ClaimItemDto((Long) item[1], (String) item[2], (Integer) item[3], (BigDecimal) item[4]));
+        }
+        for (Map<String, Object> row : rows) {
+            row.put("items", items.getOrDefault((Long) row.get("id"), List.of()));
+        }
+    }
+
+    public ExpenseClaimResponse transition(Long id, ClaimTransitionRequest request, String ifMatch) {
+        return transition(id, request, ifMatch, null);
+    }
+
+    public ExpenseClaimResponse transition(
+            Long id, ClaimTransitionRequest request, String ifMatch, String idempotencyKey) {
+        boolean retryable = ifMatch == null && !TransactionSynchronizationManager.isActualTransactionActive();
+        ClaimStatus[] firstSeen = new ClaimStatus[1];
+        return idempotencyService.execute(
+                "claims:" + id + ":transition",
+                idempotencyKey,
+                request,
+                ExpenseClaimResponse.class,
+                attempt -> retryConflicts(retryable, attempt),
+                () -> transitionTransaction.execute(status -> applyTransition(id, request, ifMatch, firstSeen)));
+    }
+
+    private ExpenseClaimResponse retryConflicts(boolean retryable, Supplier<ExpenseClaimResponse> transaction) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (!retryable || attempt >= transitionMaxAttempts) {
+                    transitionConflicts.increment();
+                    throw e;
+                }
+                transitionRetries.increment();
+            }
+        }
+    }
+
+    private ExpenseClaimResponse applyTransition(
+            Long id, ClaimTransitionRequest request, String ifMatch, ClaimStatus[] firstSeen) {
+        ExpenseClaim claim = claimRepository.findById(id).orElseGet(() -> restoreArchived(id, request, ifMatch));
+        requireMatch(claim, ifMatch);
         ClaimStatus current = claim.getStatus();
+        if (firstSeen[0] == null) {
+            firstSeen[0] = current;
+        } else if (firstSeen[0] != current) {
+            transitionConflicts.increment();
+            throw new ConcurrencyFailureException(
+                    "Claim " + id + " moved from " + firstSeen[0] + " to " + current + " concurrently");
+        }
         ClaimStatus target = request.targetStatus();
-        if (!workflow.isTransitionAllowed(current, target)) {
+        BigDecimal previousTotal = claim.getTotalAmount();
+        if (!workflow.isTransitionAllowed(claim.getTenant(), current, target)) {
             throw new IllegalStateException("Transition not allowed");
         }
-        if (workflow.isBackward(current, target)) {
-            historyRepository
-                    .findTopByClaimIdAndToStatusOrderByCreatedAtDesc(claim.getId(), target)
-                    .ifPresent(history -> {
-                        try {
-                            ClaimSnapshot snapshot = objectMapper.readValue(history.getSnapshot(), ClaimSnapshot.class);
-                            ClaimSnapshotMapper.applySnapshot(claim, snapshot);
-                        } catch (JsonProcessingException e) {
-                            throw new IllegalStateException("Could not restore snapshot", e);
-                        }
-                    });
-            if (current == ClaimStatus.INVOICED && claim.getInvoice() != null) {
-                Long invoiceId = claim.getInvoice().getId();
-                claim.setInvoice(null);
-                invoiceService.removeInvoice(invoiceId);
-            }
+        boolean backward = workflow.isBackward(claim.getTenant(), current, target);
+        if (backward) {
+            historyWriter
+                    .latestSnapshot(claim.getId(), target)
+                    .ifPresent(snapshot -> ClaimSnapshotMapper.applySnapshot(claim, snapshot));
         }
         claim.setStatus(target);
         claim.setUpdatedAt(LocalDateTime.now());
-        claimRepository.save(claim);
+        claimRepository.saveAndFlush(claim);
+        if (backward && current == ClaimStatus.INVOICED && claim.getInvoice() != null) {
+            Long invoiceId = claim.getInvoice().getId();
+            claim.setInvoice(null);
+            invoiceService.removeInvoice(invoiceId);
+        }
         if (target == ClaimStatus.INVOICED) {
             Invoice invoice = invoiceService.createFromClaim(claim);
             claim.setInvoice(invoice);
-            claimRepository.save(claim);
         }
-        recordHistory(claim, current, target, request.comment());
+        analyticsService.recordClaimChange(claim.getCreatedAt(), current, previousTotal, target, claim.getTotalAmount());
+        historyWriter.record(claim, current, target, request.comment());
+        readModel.project(claim, claim.getUpdatedAt());
+        changes.publish(ChangeTopic.CLAIM, claim.getId());
         return mapToResponse(claim);
     }
 
-    public List<StatusHistoryResponse> history(Long id) {
-        return historyRepository.findByClaimIdOrderByCreatedAtAsc(id).stream()
-                .map(entry -> new StatusHistoryResponse(
-                        entry.getId(), entry.getFromStatus(), entry.getToStatus(), entry.getComment(), entry.getCreatedAt()))
-                .toList();
+    // an archived claim comes back only for a backward move, and in the transition's own transaction
+    private ExpenseClaim restoreArchived(Long id, ClaimTransitionRequest request, String ifMatch) {
+        ArchivedClaim archived = archive.find(id).orElseThrow(() -> new IllegalArgumentException("Claim not found"));
+        String current = etag(id, archived.version());
+        if (!ETags.matches(ifMatch, current)) {
+            throw new PreconditionFailedException(current);
+        }
+        if (!workflow.isTransitionAllowed(archived.tenant(), archived.status(), request.targetStatus())
+                || !workflow.isBackward(archived.tenant(), archived.status(), request.targetStatus())) {
+            throw new IllegalStateException("Transition not allowed");
+        }
+        try {
+            archive.restore(archived);
+        } catch (DuplicateKeyException e) {
+            throw new ConcurrencyFailureException("Claim " + id + " was restored concurrently");
+        }
+        return getClaimEntity(id);
     }
 
-    private void recordHistory(ExpenseClaim claim, ClaimStatus from, ClaimStatus to, String comment) {
-        StatusHistory history = new StatusHistory();
-        history.setClaim(claim);
-        history.setFromStatus(from);
-        history.setToStatus(to);
-        history.setComment(comment);
-        history.setCreatedAt(LocalDateTime.now());
-        try {
-            history.setSnapshot(objectMapper.writeValueAsString(ClaimSnapshot.fromClaim(claim)));
-        } catch (JsonProcessingException e) {
-            history.setSnapshot("{}");
+    public List<StatusHistoryResponse> history(Long id) {
+        List<StatusHistoryResponse> history = historyWriter.history(id);
+        if (!history.isEmpty()) {
+            return history;
         }
-        historyRepository.save(history);
+        return archive.find(id)
+                .map(archived -> archived.history().stream()
+                        .map(entry -> new StatusHistoryResponse(
+                                entry.id(), entry.fromStatus(), entry.toStatus(), entry.comment(), entry.createdAt()))
+                        .toList())
+                .orElse(history);
     }
 
     private void applyItems(ExpenseClaim claim, List<ClaimItemDto> items) {
-        claim.getItems().clear();
-        if (items != null) {
-            for (ClaimItemDto dto : items) {
-                ClaimItem item = new ClaimItem();
-                item.setItemName(dto.itemName());
-                item.setQuantity(dto.quantity());
-                item.setUnitPrice(dto.unitPrice());
-                item.setClaim(claim);
-                claim.getItems().add(item);
-            }
-        }
-        BigDecimal total = claim.getItems().stream()
-                .map(ClaimItem::getLineTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        claim.setTotalAmount(total);
+        List<ClaimSnapshot.ItemSnapshot> rows = items == null ? List.of() : items.stream()
+                .map(dto -> new ClaimSnapshot.ItemSnapshot(dto.id(), dto.itemName(), dto.quantity(), dto.unitPrice()))
+                .toList();
+        ClaimSnapshotMapper.mergeItems(claim, rows, true);
     }
 
     private ExpenseClaimResponse mapToResponse(ExpenseClaim claim) {
         List<ClaimItemDto> items = claim.getItems().stream()
                 .map(item -> new ClaimItemDto(item.getId(), item.getItemName(), item.getQuantity(), item.getUnitPrice()))
                 .toList();
-        Set<ClaimStatus> allowed = workflow.allowedTargets(claim.getStatus());
+        Set<ClaimStatus> allowed = workflow.allowedTargets(claim.getTenant(), claim.getStatus());
         Long invoiceId = claim.getInvoice() != null ? claim.getInvoice().getId() : null;
         return new ExpenseClaimResponse(
                 claim.getId(),
@@ -182,10 +404,57 @@ public class ExpenseClaimService {
                 claim.getUpdatedAt(),
                 items,
                 allowed,
-                invoiceId);
+                invoiceId,
+                claim.getTenant(),
+                claim.getVersion());
+    }
+
+    private ExpenseClaimResponse mapArchived(ArchivedClaim claim) {
+        List<ClaimItemDto> items = claim.items().stream()
+                .map(item -> new ClaimItemDto(item.id(), item.itemName(), item.quantity(), item.unitPrice()))
+                .toList();
+        return new ExpenseClaimResponse(
+                claim.id(),
+                claim.referenceNumber(),
+                claim.claimantName(),
+                claim.description(),
+                claim.status(),
+                claim.totalAmount(),
+                claim.createdAt(),
+                claim.updatedAt(),
+                items,
+                workflow.allowedTargets(claim.tenant(), claim.status()),
+                claim.invoice().id(),
+                claim.tenant(),
+                claim.version());
+    }
+
+    private CachedClaim cachedClaim(Long id) {
+        CachedClaim cached = claimCache.peek(id);
+        if (cached == null) {
+            return null;
+        }
+        if (!cached.fingerprint().equals(workflow.fingerprint())) {
+            claimCache.invalidate(id);
+            return null;
+        }
+        return cached;
+    }
+
+    private String etag(Long id, Long version) {
+        return ETags.of("claim", id, version, "w" + workflow.fingerprint());
+    }
+
+    private void requireMatch(ExpenseClaim claim, String ifMatch) {
+        String current = etag(claim.getId(), claim.getVersion());
+        if (!ETags.matches(ifMatch, current)) {
+            throw new PreconditionFailedException(current);
+        }
     }
 
     private ExpenseClaim getClaimEntity(Long id) {
         return claimRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Claim not found"));
     }
+
+    private record CachedClaim(String fingerprint, ExpenseClaimResponse response) {}
 }
@@ -0,0 +1,168 @@
+package com.safi.task_backend.service;
+
+import com.safi.task_backend.config.SchedulingConfig;
+import com.safi.task_backend.dto.HistoryCompactionResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class HistoryCompactionService {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoryCompactionService.class);
+    private static final String SUPERSEDED = "exists (select 1 from status_history n where n.claim_id = h.claim_id "
+            + "and n.to_status = h.to_status "
+            + "and (n.created_at > h.created_at or (n.created_at = h.created_at and n.id > h.id)))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shards;
+    private final JobLocks jobLocks;
+    private final TransactionTemplate transaction;
+    private final Counter snapshotsStripped;
+    private final Counter bytesReclaimed;
+    private final Counter rowsMoved;
+    private final boolean enabled;
+    private final Duration hotAge;
+    private final int batchSize;
+
+    public HistoryCompactionService(
+            JdbcTemplate jdbcTemplate,
+            ShardRouter shards,
+            JobLocks jobLocks,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${history.compaction.enabled:false}") boolean enabled,
+            @Value("${history.compaction.hot-age:P30D}") Duration hotAge,
+            @Value("${history.compaction.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+        this.jobLocks = jobLocks;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.snapshotsStripped = Counter.builder("history.compaction.snapshots.stripped").register(meterRegistry);
+        this.bytesReclaimed = Counter.builder("history.compaction.reclaimed")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.rowsMoved = Counter.builder("history.compaction.rows.moved").register(meterRegistry);
+        this.enabled = enabled;
+        this.hotAge = hotAge;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${history.compaction.interval:PT6H}", scheduler = SchedulingConfig.JOBS)
+    public void scheduledCompact() {
+        if (enabled) {
+            jobLocks.runExclusive("history-compaction", this::run);
+        }
+    }
+
+    public HistoryCompactionResponse compact() {
+        return jobLocks.runExclusive("history-compaction", this::run)
+                .orElseThrow(() -> new IllegalStateException("A status history compaction is already running"));
+    }
+
+    private HistoryCompactionResponse run() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(hotAge);
+        Map<Integer, Supplier<HistoryCompactionResponse>> work = new TreeMap<>();
+        for (int shard = 0; shard < shards.shardCount(); shard++) {
+            work.put(shard, () -> compactShard(cutoff));
+        }
+        long stripped = 0;
+        long bytes = 0;
+        long moved = 0;
+        for (HistoryCompactionResponse shard : shards.onShards(work).values()) {
+            stripped += shard.snapshotsStripped();
+            bytes += shard.snapshotBytesReclaimed();
+            moved += shard.rowsMoved();
+        }
+        snapshotsStripped.increment(stripped);
+        bytesReclaimed.increment(bytes);
+        rowsMoved.increment(moved);
+        if (stripped > 0 || moved > 0) {
+            log.info("Compacted status history: {} snapshots stripped ({} bytes), {} rows moved to cold storage",
+                    stripped, bytes, moved);
+        }
+        return new HistoryCompactionResponse(stripped, bytes, moved);
+    }
+
+    private HistoryCompactionResponse compactShard(LocalDateTime cutoff) {
+        long stripped = 0;
+        long bytes = 0;
+        while (true) {
+            long[] batch = transaction.execute(status -> stripBatch());
+            stripped += batch[0];
+            bytes += batch[1];
+            if (batch[0] < batchSize) {
+                break;
+            }
+        }
+        long moved = 0;
+        while (true) {
+            int batch = transaction.execute(status -> moveBatch(cutoff));
+            moved += batch;
+            if (batch < batchSize) {
+                break;
+            }
+        }
+        return new HistoryCompactionResponse(stripped, bytes, moved);
+    }
+
+    private long[] stripBatch() {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "select h.id, octet_length(h.snapshot) as bytes from status_history h "
+                        + "where h.snapshot is not null and " + SUPERSEDED + " order by h.id limit ?",
+                batchSize);
+        if (rows.isEmpty()) {
+            return new long[] {0, 0};
+        }
+        Object[] ids = rows.stream().map(row -> row.get("id")).toArray();
+        jdbcTemplate.update(
+                "update status_history set snapshot = null where id in (" + placeholders(ids.length) + ")", ids);
+        long bytes = rows.stream()
+                .map(row -> (Number) row.get("bytes"))
+                .mapToLong(length -> length != null ? length.longValue() : 0)
+                .sum();
+        return new long[] {rows.size(), bytes};
+    }
+
+    private int moveBatch(LocalDateTime cutoff) {
+        Object[] ids = jdbcTemplate.queryForList(
+                        "select h.id from status_history h where h.created_at < ? and " + SUPERSEDED
+                                + " order by h.id limit ?",
+                        Long.class,
+                        Timestamp.valueOf(cutoff),
+                        batchSize)
+                .toArray();
+        if (ids.length == 0) {
+            return 0;
+        }
+        String in = placeholders(ids.length);
+        jdbcTemplate.update(
+                "insert into status_history_cold (id, partition_month, claim_id, from_status, to_status, comment, "
+                        + "created_at, journal_id) select id, "
+                        + "extract(year from created_at) * 100 + extract(month from created_at), claim_id, "
+                        + "from_status, to_status, comment, created_at, journal_id from status_history "
+                        + "where id in (" + in + ")",
+                ids);
+        jdbcTemplate.update("delete from status_history where id in (" + in + ")", ids);
+        return ids.length;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
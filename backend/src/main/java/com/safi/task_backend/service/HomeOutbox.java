@@ -0,0 +1,219 @@
+package com.safi.task_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safi.task_backend.util.ShardContext;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class HomeOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(HomeOutbox.class);
+
+    private final ShardRouter shards;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate relayTransaction;
+    private final int batchSize;
+    private final Duration receiptRetention;
+    private final Map<String, Handler<?>> handlers = new ConcurrentHashMap<>();
+
+    public HomeOutbox(
+            ShardRouter shards,
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${sharding.outbox.batch-size:100}") int batchSize,
+            @Value("${sharding.outbox.receipt-retention:P1D}") Duration receiptRetention) {
+        this.shards = shards;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.relayTransaction = new TransactionTemplate(transactionManager);
+        this.relayTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.receiptRetention = receiptRetention;
+    }
+
+    public <T> void register(String kind, Class<T> type, Consumer<T> apply) {
+        handlers.put(kind, new Handler<>(type, apply));
+    }
+
+    public void write(String kind, Object payload) {
+        Handler<?> handler = handler(kind);
+        if (!shards.isSharded() || ShardContext.isHome()) {
+            handler.applyObject(payload);
+            return;
+        }
+        int shard = ShardContext.current();
+        long id = insert(kind, json(payload));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    relayQuietly(shard, List.of(id));
+                }
+            });
+        } else {
+            relayQuietly(shard, List.of(id));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${sharding.outbox.relay-interval:PT5S}")
+    public void relayPending() {
+        if (!shards.isSharded()) {
+            return;
+        }
+        Map<Integer, Supplier<Integer>> work = new TreeMap<>();
+        for (int shard = 0; shard < shards.shardCount(); shard++) {
+            if (shard != ShardContext.HOME_SHARD) {
+                int source = shard;
+                work.put(shard, () -> {
+                    int relayed = 0;
+                    try {
+                        for (int batch; (batch = relayBatch(source, null)) > 0; ) {
+                            relayed += batch;
+                        }
+                    } catch (RuntimeException e) {
+                        log.warn("Relaying the home outbox of shard {} failed; retrying on the next run", source, e);
+                    }
+                    return relayed;
+                });
+            }
+        }
+        shards.onShards(work);
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(receiptRetention));
+        shards.onHome(() -> jdbcTemplate.update("delete from home_outbox_receipts where applied_at < ?", cutoff));
+    }
+
+    private void relayQuietly(int shard, List<Long> ids) {
+        try {
+            shards.onShards(Map.<Integer, Supplier<Integer>>of(shard, () -> relayBatch(shard, ids)));
+        } catch (RuntimeException e) {
+            log.warn("Relaying home outbox entries {} of shard {} failed; retrying on the next run", ids, shard, e);
+        }
+    }
+
+    // The rows stay locked on their shard until the home transaction has committed and they are deleted, so two
+    // relays of one entry run one after the other and the second finds the receipt.
+    private int relayBatch(int shard, List<Long> ids) {
+        Integer relayed = relayTransaction.execute(status -> {
+            List<Entry> entries = ids == null
+                    ? jdbcTemplate.query(
+                            "select id, kind, payload from home_outbox order by id limit ? for update",
+                            (rs, row) -> new Entry(rs.getLong(1), rs.getString(2), rs.getString(3)),
+                            batchSize)
+                    : jdbcTemplate.query(
+                            "select id, kind, payload from home_outbox where id in ("
+                                    + String.join(", ", Collections.nCopies(ids.size(), "?"))
+                                    + ") order by id for update",
+                            (rs, row) -> new Entry(rs.getLong(1), rs.getString(2), rs.getString(3)),
+                            ids.toArray());
+            if (entries.isEmpty()) {
+                return 0;
+            }
+            shards.onHome(() -> {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                for (Entry entry : entries) {
+                    Integer received = jdbcTemplate.queryForObject(
+                            "select count(*) from home_outbox_receipts where shard = ? and entry_id = ?",
+                            Integer.class,
+                            shard,
+                            entry.id());
+                    if (received != null && received > 0) {
+                        continue;
+                    }
+                    handler(entry.kind()).applyJson(entry.payload());
+                    jdbcTemplate.update(
+                            "insert into home_outbox_receipts (shard, entry_id, applied_at) values (?, ?, ?)",
+                            shard,
+                            entry.id(),
+                            now);
+                }
+                return null;
+            });
+            jdbcTemplate.batchUpdate(
+                    "delete from home_outbox where id = ?",
+                    entries.stream().map(entry -> new Object[] {entry.id()}).toList());
+            return entries.size();
+        });
+        return relayed == null ? 0 : relayed;
+    }
+
+    private long insert(String kind, String payload) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "insert into home_outbox (kind, payload, created_at) values (?, ?, ?)", new String[] {"id"});
+            statement.setString(1, kind);
+            statement.setString(2, payload);
+            statement.setTimestamp(3, now);
+            return statement;
+        }, keys);
+        return keys.getKey().longValue();
+    }
+
+    private Handler<?> handler(String kind) {
+        Handler<?> handler = handlers.get(kind);
+        if (handler == null) {
+            throw new IllegalStateException("No home outbox handler for " + kind);
+        }
+        return handler;
+    }
+
+    private String json(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize home outbox payload", e);
+        }
+    }
+
+    private record Entry(long id, String kind, String payload) {}
+
+    private final class Handler<T> {
+
+        private final Class<T> type;
+        private final Consumer<T> apply;
+
+        private Handler(Class<T> type, Consumer<T> apply) {
+            this.type = type;
+            this.apply = apply;
+        }
+
+        void applyObject(Object payload) {
+            apply.accept(type.cast(payload));
+        }
+
+        void applyJson(String payload) {
+            try {
+                apply.accept(objectMapper.readValue(payload, type));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not read home outbox payload", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.safi.task_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safi.task_backend.config.SchedulingConfig;
+import com.safi.task_backend.model.IdempotencyRecord;
+import com.safi.task_backend.repository.IdempotencyRecordRepository;
+import com.safi.task_backend.util.ShardContext;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class IdempotencyService {
+
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final ShardRouter shards;
+    private final Duration ttl;
+    private final Duration inFlightTimeout;
+    private final Duration lease;
+    private final TransactionTemplate actionTransaction;
+    private final Map<String, CachedResult> results;
+    private final ConcurrentHashMap<String, Execution> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Lease> held = new ConcurrentHashMap<>();
+
+    public IdempotencyService(
+            IdempotencyRecordRepository recordRepository,
+            ObjectMapper objectMapper,
+            ShardRouter shards,
+            PlatformTransactionManager transactionManager,
+            @Value("${idempotency.ttl:PT24H}") Duration ttl,
+            @Value("${idempotency.in-flight-timeout:PT30S}") Duration inFlightTimeout,
+            @Value("${idempotency.lease:PT10S}") Duration lease,
+            @Value("${idempotency.max-entries:10000}") int maxEntries) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.shards = shards;
+        this.ttl = ttl;
+        this.inFlightTimeout = inFlightTimeout;
+        this.lease = lease;
+        this.actionTransaction = new TransactionTemplate(transactionManager);
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public <T> T execute(String scope, String key, Object request, Class<T> resultType, Supplier<T> action) {
+        return execute(scope, key, request, resultType, Supplier::get, action);
+    }
+
+    // attempts runs each try of the outermost transaction, which for a keyed request is the one that also stores
+    // the response, so a retry hook behaves the same with and without a key
+    public <T> T execute(
+            String scope,
+            String key,
+            Object request,
+            Class<T> resultType,
+            Function<Supplier<T>, T> attempts,
+            Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return attempts.apply(action);
+        }
+        String cacheKey = scope + ":" + key;
+        String requestHash = hash(request);
+
+        CachedResult cached = cachedResult(cacheKey);
+        if (cached != null) {
+            requireSameRequest(cached.requestHash(), requestHash);
+            return resultType.cast(cached.value());
+        }
+
+        Execution execution = new Execution(requestHash, new CompletableFuture<>());
+        Execution running = inFlight.putIfAbsent(cacheKey, execution);
+        if (running != null) {
+            requireSameRequest(running.requestHash(), requestHash);
+            return resultType.cast(await(running.result()));
+        }
+        try {
+            T result = executeOnce(cacheKey, requestHash, resultType, attempts, action);
+            execution.result().complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            execution.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, execution);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.lease-renew-interval:PT2S}", scheduler = SchedulingConfig.LEASES)
+    public void renewLeases() {
+        LocalDateTime until = LocalDateTime.now().plus(lease);
+        held.forEach((cacheKey, owned) -> shards.onShards(Map.<Integer, Supplier<Integer>>of(
+                owned.shard(), () -> recordRepository.renew(cacheKey, owned.token(), until))));
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (results) {
+            results.values().removeIf(result -> result.expiresAt().isBefore(now));
+        }
+        shards.forEachShard(() -> recordRepository.deleteExpired(now));
+    }
+
+    private <T> T executeOnce(
+            String cacheKey,
+            String requestHash,
+            Class<T> resultType,
+            Function<Supplier<T>, T> attempts,
+            Supplier<T> action) {
+        Claim claim = claimKey(cacheKey, requestHash);
+        if (claim.completed() != null) {
+            T result = read(claim.completed().getResponseBody(), resultType);
+            cache(cacheKey, requestHash, result, claim.completed().getExpiresAt());
+            return result;
+        }
+
+        String token = claim.token();
+        held.put(cacheKey, new Lease(token, ShardContext.isHome() ? ShardContext.HOME_SHARD : ShardContext.current()));
+        try {
+            LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+            T result = attempts.apply(() -> actionTransaction.execute(status -> {
+                T value = action.get();
+                // completed in the action's transaction, so the action and its stored response commit together
+                if (recordRepository.complete(cacheKey, token, write(value), expiresAt) == 0) {
+                    throw new ConcurrencyFailureException("Another request took over this Idempotency-Key");
+                }
+                return value;
+            }));
+            cache(cacheKey, requestHash, result, expiresAt);
+            return result;
+        } catch (RuntimeException e) {
+            recordRepository.release(cacheKey, token);
+            throw e;
+        } finally {
+            held.remove(cacheKey);
+        }
+    }
+
+    private Claim claimKey(String cacheKey, String requestHash) {
+        LocalDateTime deadline = LocalDateTime.now().plus(inFlightTimeout);
+        String token = UUID.randomUUID().toString();
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            Optional<IdempotencyRecord> existing = recordRepository.findByIdempotencyKey(cacheKey);
+            if (existing.isPresent()) {
+                IdempotencyRecord record = existing.get();
+                requireSameRequest(record.getRequestHash(), requestHash);
+                if (record.isCompleted()) {
+                    return new Claim(record, null);
+                }
+                if (record.getLeaseExpiresAt() != null
+                        && record.getLeaseExpiresAt().isBefore(now)
+                        && recordRepository.takeOver(
+                                        cacheKey, record.getLeaseToken(), token, now.plus(lease), now)
+                                == 1) {
+                    return new Claim(null, token);
+                }
+                if (now.isAfter(deadline)) {
+                    throw new IllegalStateException("A request with this Idempotency-Key is still in progress");
+                }
+                sleep();
+                continue;
+            }
+            IdempotencyRecord pending = new IdempotencyRecord();
+            pending.setIdempotencyKey(cacheKey);
+            pending.setRequestHash(requestHash);
+            pending.setCreatedAt(now);
+            pending.setExpiresAt(now.plus(ttl));
+            pending.setLeaseToken(token);
+            pending.setLeaseExpiresAt(now.plus(lease));
+            try {
+                recordRepository.save(pending);
+                return new Claim(null, token);
+            } catch (DataIntegrityViolationException e) {
+                // another request inserted the key first; the next pass reads its record
+            }
+        }
+    }
+
+    private CachedResult cachedResult(String cacheKey) {
+        synchronized (results) {
+            CachedResult cached = results.get(cacheKey);
+            if (cached != null && cached.expiresAt().isBefore(LocalDateTime.now())) {
+                results.remove(cacheKey);
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    private void cache(String cacheKey, String requestHash, Object value, LocalDateTime expiresAt) {
+        synchronized (results) {
+            results.put(cacheKey, new CachedResult(requestHash, value, expiresAt));
+        }
+    }
+
+    private Object await(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void requireSameRequest(String stored, String requestHash) {
+        if (!stored.equals(requestHash)) {
+            throw new IllegalStateException("Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint request", e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store idempotent result", e);
+        }
+    }
+
+    private <T> T read(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read idempotent result", e);
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for idempotent request", e);
+        }
+    }
+
+    private record Claim(IdempotencyRecord completed, String token) {}
+
+    private record Lease(String token, int shard) {}
+
+    private record Execution(String requestHash, CompletableFuture<Object> result) {}
+
+    private record CachedResult(String requestHash, Object value, LocalDateTime expiresAt) {}
+}
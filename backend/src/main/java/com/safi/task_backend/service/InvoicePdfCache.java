@@ -0,0 +1,58 @@
+package com.safi.task_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safi.task_backend.dto.InvoicePdfData;
+import com.safi.task_backend.dto.InvoicePdfPayload;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class InvoicePdfCache {
+
+    private final ObjectMapper objectMapper;
+    private final Map<Long, Entry> entries;
+
+    public InvoicePdfCache(ObjectMapper objectMapper, @Value("${invoice.pdf.cache-max-entries:10000}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public InvoicePdfPayload get(Long invoiceId, LocalDateTime version) {
+        synchronized (entries) {
+            Entry entry = entries.get(invoiceId);
+            return entry != null && Objects.equals(entry.version(), version) ? entry.payload() : null;
+        }
+    }
+
+    public InvoicePdfPayload put(Long invoiceId, LocalDateTime version, InvoicePdfData data) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize invoice PDF data", e);
+        }
+        InvoicePdfPayload payload = new InvoicePdfPayload(data, json, PdfImageAssets.sha256(json).substring(0, 32));
+        synchronized (entries) {
+            entries.put(invoiceId, new Entry(version, payload));
+        }
+        return payload;
+    }
+
+    public void evict(Long invoiceId) {
+        synchronized (entries) {
+            entries.remove(invoiceId);
+        }
+    }
+
+    private record Entry(LocalDateTime version, InvoicePdfPayload payload) {}
+}
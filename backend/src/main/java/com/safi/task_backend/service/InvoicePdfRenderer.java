@@ -0,0 +1,163 @@
+package com.safi.task_backend.service;
+
+import com.safi.task_backend.dto.InvoicePdfData;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.Locale;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.springframework.stereotype.Component;
+
+@Component
+public class InvoicePdfRenderer {
+
+    private static final PDRectangle PAGE = PDRectangle.A4;
+    private static final float MARGIN = 40;
+    private static final float TOP = PAGE.getHeight() - 120;
+    private static final float BOTTOM = 120;
+    private static final float LINE = 16;
+    private static final float[] COLUMNS = {MARGIN, PAGE.getWidth() - MARGIN - 240, PAGE.getWidth() - MARGIN - 180,
+        PAGE.getWidth() - MARGIN - 100};
+
+    private final PdfImageAssets imageAssets;
+    private final PDType1Font regular = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+    private final PDType1Font bold = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+
+    public InvoicePdfRenderer(PdfImageAssets imageAssets) {
+        this.imageAssets = imageAssets;
+    }
+
+    public byte[] render(InvoicePdfData data) {
+        try (PDDocument document = new PDDocument()) {
+            Page page = new Page(document, data);
+            page.text(bold, 18, MARGIN, "Invoice " + data.invoiceNumber());
+            page.advance(LINE * 2);
+            page.text(regular, 11, MARGIN, "Date: " + data.invoiceDate());
+            page.textRight(regular, 11, PAGE.getWidth() - MARGIN, "Claim Reference: " + data.claimReference());
+            page.advance(LINE * 1.5f);
+            page.text(regular, 11, MARGIN, "Payee: " + data.claimantName());
+            page.advance(LINE * 2);
+            page.row(bold, "Item", "Qty", "Price", "Line Total");
+            for (InvoicePdfData.InvoiceLine line : data.items()) {
+                page.ensureRoom(LINE);
+                page.row(regular, line.itemName(), String.valueOf(line.quantity()), currency(line.unitPrice()),
+                        currency(line.lineTotal()));
+            }
+            page.ensureRoom(LINE * 4);
+            page.advance(LINE);
+            page.textRight(regular, 11, PAGE.getWidth() - MARGIN, "Subtotal: " + currency(data.subtotal())
+                    + "    Tax: " + currency(data.tax()) + "    Total: " + currency(data.total()));
+            if (data.managerApproved()) {
+                page.advance(LINE * 2);
+                page.text(bold, 14, MARGIN, "Approved by Manager");
+            }
+            page.close();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not render invoice " + data.invoiceNumber(), e);
+        }
+    }
+
+    private String currency(BigDecimal value) {
+        return NumberFormat.getCurrencyInstance(Locale.US).format(value != null ? value : BigDecimal.ZERO);
+    }
+
+    // The standard 14 fonts only cover WinAnsi; anything else would make PDFBox reject the whole document.
+    private static String printable(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder safe = new StringBuilder(text.length());
+        text.codePoints().forEach(c -> safe.append((c >= 0x20 && c < 0x7f) || (c >= 0xa0 && c <= 0xff) ? (char) c : '?'));
+        return safe.toString();
+    }
+
+    private final class Page {
+
+        private final PDDocument document;
+        private final PDImageXObject header;
+        private final PDImageXObject footer;
+        private PDPageContentStream content;
+        private float y;
+
+        Page(PDDocument document, InvoicePdfData data) throws IOException {
+            this.document = document;
+            this.header = image(document, data.headerImageUrl(), "header");
+            this.footer = image(document, data.footerImageUrl(), "footer");
+            next();
+        }
+
+        void next() throws IOException {
+            close();
+            PDPage page = new PDPage(PAGE);
+            document.addPage(page);
+            content = new PDPageContentStream(document, page);
+            draw(header, 400, 80, PAGE.getHeight() - 40);
+            draw(footer, 400, 60, 40 + 60);
+            y = TOP;
+        }
+
+        void ensureRoom(float height) throws IOException {
+            if (y - height < BOTTOM) {
+                next();
+            }
+        }
+
+        void advance(float height) {
+            y -= height;
+        }
+
+        void text(PDType1Font font, float size, float x, String text) throws IOException {
+            content.beginText();
+            content.setFont(font, size);
+            content.newLineAtOffset(x, y);
+            content.showText(printable(text));
+            content.endText();
+        }
+
+        void textRight(PDType1Font font, float size, float right, String text) throws IOException {
+            String safe = printable(text);
+            text(font, size, right - font.getStringWidth(safe) / 1000 * size, safe);
+        }
+
+        void row(PDType1Font font, String item, String quantity, String price, String total) throws IOException {
+            text(font, 10, COLUMNS[0], item);
+            text(font, 10, COLUMNS[1], quantity);
+            text(font, 10, COLUMNS[2], price);
+            text(font, 10, COLUMNS[3], total);
+            advance(LINE);
+        }
+
+        void close() throws IOException {
+            if (content != null) {
+                content.close();
+                content = null;
+            }
+        }
+
+        private void draw(PDImageXObject image, float maxWidth, float maxHeight, float top) throws IOException {
+            if (image == null) {
+                return;
+            }
+            float scale = Math.min(maxWidth / image.getWidth(), maxHeight / image.getHeight());
+            float width = image.getWidth() * scale;
+            float height = image.getHeight() * scale;
+            content.drawImage(image, (PAGE.getWidth() - width) / 2, top - height, width, height);
+        }
+
+        private PDImageXObject image(PDDocument document, String url, String name) throws IOException {
+            byte[] bytes = imageAssets.findByUrl(url).orElse(null);
+            return bytes != null ? PDImageXObject.createFromByteArray(document, bytes, name) : null;
+        }
+    }
+}
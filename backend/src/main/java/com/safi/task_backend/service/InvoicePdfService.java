@@ -0,0 +1,136 @@
+package com.safi.task_backend.service;
+
+import com.safi.task_backend.dto.InvoicePdfPayload;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Service
+public class InvoicePdfService {
+
+    private final InvoiceService invoiceService;
+    private final InvoicePdfRenderer renderer;
+    private final RenderedPdfCache renderedCache;
+    private final ShardRouter shards;
+    private final ExecutorService renderPool;
+    private final int renderThreads;
+
+    public InvoicePdfService(
+            InvoiceService invoiceService,
+            InvoicePdfRenderer renderer,
+            RenderedPdfCache renderedCache,
+            ShardRouter shards,
+            @Value("${invoice.pdf.render-threads:4}") int renderThreads) {
+        this.invoiceService = invoiceService;
+        this.renderer = renderer;
+        this.renderedCache = renderedCache;
+        this.shards = shards;
+        this.renderThreads = renderThreads;
+        AtomicInteger threads = new AtomicInteger();
+        this.renderPool = Executors.newFixedThreadPool(renderThreads, task -> {
+            Thread thread = new Thread(task, "pdf-render-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public InvoicePdfPayload payload(Long invoiceId) {
+        return invoiceService.getPdfData(invoiceId);
+    }
+
+    public byte[] render(Long invoiceId, InvoicePdfPayload payload) {
+        if (!payload.data().managerApproved()) {
+            return renderer.render(payload.data());
+        }
+        return renderedCache.get(invoiceId, payload.etag()).orElseGet(() -> {
+            byte[] pdf = renderer.render(payload.data());
+            renderedCache.put(invoiceId, payload.etag(), pdf);
+            return pdf;
+        });
+    }
+
+    public Map<Long, InvoicePdfPayload> batchPayloads(List<Long> invoiceIds) {
+        if (invoiceIds.contains(null)) {
+            throw new IllegalArgumentException("Invoice ids must not be null");
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(invoiceIds));
+        Map<Long, InvoicePdfPayload> loaded = loadPayloads(ids);
+        Map<Long, InvoicePdfPayload> payloads = new LinkedHashMap<>();
+        ids.forEach(id -> payloads.put(id, loaded.get(id)));
+        return payloads;
+    }
+
+    public void writeZip(Map<Long, InvoicePdfPayload> payloads, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        Deque<CompletableFuture<Rendered>> inFlight = new ArrayDeque<>();
+        for (Map.Entry<Long, InvoicePdfPayload> entry : payloads.entrySet()) {
+            Long id = entry.getKey();
+            InvoicePdfPayload payload = entry.getValue();
+            inFlight.add(CompletableFuture.supplyAsync(
+                    () -> new Rendered(payload.data().invoiceNumber(), render(id, payload)), renderPool));
+            if (inFlight.size() >= renderThreads * 2) {
+                writeEntry(zip, inFlight.poll());
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            writeEntry(zip, inFlight.poll());
+        }
+        zip.finish();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdownNow();
+    }
+
+    private Map<Long, InvoicePdfPayload> loadPayloads(List<Long> ids) {
+        Map<Integer, List<Long>> idsByShard = new LinkedHashMap<>();
+        for (Long id : ids) {
+            idsByShard.computeIfAbsent(shards.shardOf(id), shard -> new ArrayList<>()).add(id);
+        }
+        Map<Integer, Supplier<Map<Long, InvoicePdfPayload>>> work = new LinkedHashMap<>();
+        idsByShard.forEach((shard, shardIds) -> work.put(shard, () -> {
+            Map<Long, InvoicePdfPayload> loaded = new HashMap<>();
+            shardIds.forEach(id -> loaded.put(id, invoiceService.getPdfData(id)));
+            return loaded;
+        }));
+        Map<Long, InvoicePdfPayload> payloads = new HashMap<>();
+        shards.onShards(work).values().forEach(payloads::putAll);
+        return payloads;
+    }
+
+    private void writeEntry(ZipOutputStream zip, CompletableFuture<Rendered> future) throws IOException {
+        Rendered rendered;
+        try {
+            rendered = future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        zip.putNextEntry(new ZipEntry(rendered.invoiceNumber() + ".pdf"));
+        zip.write(rendered.pdf());
+        zip.closeEntry();
+    }
+
+    private record Rendered(String invoiceNumber, byte[] pdf) {}
+}
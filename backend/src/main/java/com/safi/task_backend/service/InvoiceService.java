@@ -1,45 +1,125 @@
 package com.safi.task_backend.service;
 
+import com.safi.task_backend.dto.ArchivedClaim;
+import com.safi.task_backend.dto.BulkApprovalResponse;
 import com.safi.task_backend.dto.InvoicePdfData;
+import com.safi.task_backend.dto.InvoicePdfPayload;
 import com.safi.task_backend.dto.InvoiceResponse;
 import com.safi.task_backend.dto.PageResponse;
 import com.safi.task_backend.model.ExpenseClaim;
 import com.safi.task_backend.model.Invoice;
 import com.safi.task_backend.model.InvoiceItem;
+import com.safi.task_backend.model.enums.ChangeTopic;
 import com.safi.task_backend.model.enums.InvoiceStatus;
 import com.safi.task_backend.repository.InvoiceRepository;
+import com.safi.task_backend.util.ETags;
+import com.safi.task_backend.util.FieldSelection;
+import com.safi.task_backend.util.LocalCache;
+import com.safi.task_backend.util.LongLongHashMap;
+import com.safi.task_backend.util.ShardKeys;
+import com.safi.task_backend.util.SingleFlight;
 import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class InvoiceService {
 
-    private static final String INLINE_PIXEL =
-            "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR4nGMAAQAABQABDQottAAAAABJRU5ErkJggg==";
+    private static final Map<String, SparseFieldQuery.Column<Invoice>> LIST_COLUMNS = Map.ofEntries(
+            Map.entry("id", root -> root.get("id")),
+            Map.entry("invoiceNumber", root -> root.get("invoiceNumber")),
+            Map.entry("claimId", root -> root.get("claim").get("id")),
+            Map.entry("status", root -> root.get("status")),
+            Map.entry("createdAt", root -> root.get("createdAt")),
+            Map.entry("approvedAt", root -> root.get("approvedAt")),
+            Map.entry("subtotal", root -> root.get("subtotal")),
+            Map.entry("tax", root -> root.get("tax")),
+            Map.entry("total", root -> root.get("total")),
+            Map.entry("stockApplied", root -> root.get("stockApplied")),
+            Map.entry("version", root -> root.get("version")));
+    private static final Set<String> LIST_FIELDS = Set.of(
+            "id", "invoiceNumber", "claimId", "status", "createdAt", "approvedAt", "subtotal", "tax", "total",
+            "stockApplied", "items", "version");
+    private static final Map<String, List<String>> LIST_VIEWS = Map.of(
+            "summary", List.of("id", "invoiceNumber", "claimId", "status", "total", "createdAt"));
 
     private final InvoiceRepository invoiceRepository;
     private final StockService stockService;
+    private final AnalyticsService analyticsService;
+    private final ClaimReadModelService readModel;
+    private final InvoicePdfCache pdfCache;
+    private final PdfImageAssets imageAssets;
+    private final ShardRouter shards;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate chunkTransaction;
+    private final TransactionTemplate readTransaction;
+    private final SingleFlight<String, InvoiceResponse> invoiceLoads;
+    private final SingleFlight<String, InvoicePdfPayload> pdfLoads;
+    private final ClaimArchiveService archive;
+    private final SparseFieldQuery sparseQuery;
+    private final ChangeBus changes;
+    private final LocalCache<Long, InvoiceResponse> invoiceCache;
 
     private final BigDecimal taxRate;
-    private final String headerImage;
-    private final String footerImage;
+    private final int bulkChunkSize;
 
     public InvoiceService(
             InvoiceRepository invoiceRepository,
             StockService stockService,
-            @Value("${invoice.pdf.tax-rate:0.1}") BigDecimal taxRate) {
+            AnalyticsService analyticsService,
+            ClaimReadModelService readModel,
+            InvoicePdfCache pdfCache,
+            PdfImageAssets imageAssets,
+            ShardRouter shards,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            RequestCoalescer coalescer,
+            ClaimArchiveService archive,
+            SparseFieldQuery sparseQuery,
+            ChangeBus changes,
+            @Value("${invoice.pdf.tax-rate:0.1}") BigDecimal taxRate,
+            @Value("${invoice.bulk-approval.chunk-size:500}") int bulkChunkSize) {
         this.invoiceRepository = invoiceRepository;
         this.stockService = stockService;
+        this.analyticsService = analyticsService;
+        this.readModel = readModel;
+        this.pdfCache = pdfCache;
+        this.imageAssets = imageAssets;
+        this.shards = shards;
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.invoiceLoads = coalescer.flight("invoice");
+        this.pdfLoads = coalescer.flight("invoice-pdf");
+        this.archive = archive;
+        this.sparseQuery = sparseQuery;
+        this.changes = changes;
+        this.invoiceCache = changes.entityCache(ChangeTopic.INVOICE);
         this.taxRate = taxRate;
-        this.headerImage = INLINE_PIXEL;
-        this.footerImage = INLINE_PIXEL;
+        this.bulkChunkSize = bulkChunkSize;
     }
 
     @Transactional
@@ -72,43 +152,264 @@ public class InvoiceService {
         invoice.setSubtotal(subtotal);
         invoice.setTax(tax);
         invoice.setTotal(subtotal.add(tax));
-        return invoiceRepository.save(invoice);
+        Invoice saved = invoiceRepository.save(invoice);
+        changes.publish(ChangeTopic.INVOICE, saved.getId());
+        analyticsService.recordInvoiceCreated(saved.getCreatedAt(), saved.getSubtotal(), saved.getTax(), saved.getTotal());
+        return saved;
     }
 
     @Transactional
     public Invoice approve(Long invoiceId) {
+        if (invoiceRepository.markApproved(invoiceId, LocalDateTime.now()) == 0) {
+            return invoiceRepository
+                    .findById(invoiceId)
+                    .orElseThrow(() -> new IllegalArgumentException("Invoice not found"));
+        }
         Invoice invoice = invoiceRepository
                 .findById(invoiceId)
-                .orElseThrow(() -> new IllegalArgumentException("Invoice not found"));
-        invoice.setStatus(InvoiceStatus.APPROVED);
-        invoice.setApprovedAt(LocalDateTime.now());
-        invoice.setUpdatedAt(LocalDateTime.now());
-        if (!invoice.isStockApplied()) {
-            stockService.applyInvoice(invoice.getItems());
-            invoice.setStockApplied(true);
+                .orElseThrow(() -> new IllegalStateException("Invoice " + invoiceId + " vanished after approval"));
+        stockService.applyInvoice(invoice.getItems());
+        changes.publish(ChangeTopic.INVOICE, invoiceId);
+        analyticsService.recordInvoicesApproved(
+                invoice.getApprovedAt().toLocalDate(),
+                1,
+                analyticsService.leadSeconds(claimCreatedAt(invoice), invoice.getCreatedAt(), invoice.getApprovedAt()));
+        readModel.invoiceStatusChanged(List.of(invoice.getId()), InvoiceStatus.APPROVED);
+        pdfCache.put(invoice.getId(), invoice.getUpdatedAt(), toPdfData(invoice, true));
+        return invoice;
+    }
+
+    public BulkApprovalResponse approveBulk(List<Long> invoiceIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(invoiceIds));
+        Map<Integer, List<Long>> idsByShard = new TreeMap<>();
+        Map<Long, BulkApprovalResponse.Result> unrouted = new HashMap<>();
+        for (Long id : ids) {
+            int shard = ShardKeys.shardOf(id);
+            if (shard < shards.shardCount()) {
+                idsByShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(id);
+            } else {
+                unrouted.put(id, BulkApprovalResponse.Result.NOT_FOUND);
+            }
+        }
+        Map<Integer, Supplier<Map<Long, BulkApprovalResponse.Result>>> work = new TreeMap<>();
+        idsByShard.forEach((shard, shardIds) -> work.put(shard, () -> approveShard(shardIds)));
+        Map<Long, BulkApprovalResponse.Result> results = new HashMap<>(unrouted);
+        shards.onShards(work).values().forEach(results::putAll);
+        List<BulkApprovalResponse.InvoiceOutcome> outcomes = ids.stream()
+                .map(id -> new BulkApprovalResponse.InvoiceOutcome(id, results.get(id)))
+                .toList();
+        Map<BulkApprovalResponse.Result, Long> counts = outcomes.stream()
+                .collect(Collectors.groupingBy(BulkApprovalResponse.InvoiceOutcome::result, Collectors.counting()));
+        return new BulkApprovalResponse(
+                counts.getOrDefault(BulkApprovalResponse.Result.APPROVED, 0L).intValue(),
+                counts.getOrDefault(BulkApprovalResponse.Result.ALREADY_APPROVED, 0L).intValue(),
+                counts.getOrDefault(BulkApprovalResponse.Result.NOT_FOUND, 0L).intValue(),
+                outcomes);
+    }
+
+    private Map<Long, BulkApprovalResponse.Result> approveShard(List<Long> ids) {
+        Map<Long, BulkApprovalResponse.Result> results = new HashMap<>();
+        for (int start = 0; start < ids.size(); start += bulkChunkSize) {
+            List<Long> chunk = ids.subList(start, Math.min(ids.size(), start + bulkChunkSize));
+            chunkTransaction.execute(status -> approveChunk(chunk)).forEach(
+                    outcome -> results.put(outcome.invoiceId(), outcome.result()));
+        }
+        return results;
+    }
+
+    private List<BulkApprovalResponse.InvoiceOutcome> approveChunk(List<Long> chunk) {
+        Map<Long, Invoice> invoices = invoiceRepository.findWithItemsByIdIn(chunk).stream()
+                .collect(Collectors.toMap(Invoice::getId, Function.identity()));
+        List<Long> candidates = chunk.stream().filter(invoices::containsKey).toList();
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        int[] updated = jdbcTemplate.batchUpdate(
+                "update invoices set status = 'APPROVED', stock_applied = true, approved_at = ?, updated_at = ?, "
+                        + "version = version + 1 "
+                        + "where id = ? and status = 'DRAFT' and stock_applied = false",
+                candidates.stream().map(id -> new Object[] {timestamp, timestamp, id}).toList());
+
+        Map<Long, BulkApprovalResponse.Result> results = new HashMap<>();
+        List<Long> approvedIds = new ArrayList<>();
+        Map<String, Long> stockItemIds = new HashMap<>();
+        LongLongHashMap deltas = new LongLongHashMap(64);
+        long leadSeconds = 0;
+        int approved = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            if (updated[i] == Statement.SUCCESS_NO_INFO) {
+                throw new IllegalStateException("JDBC driver did not report per-invoice update counts");
+            }
+            Invoice invoice = invoices.get(candidates.get(i));
+            if (updated[i] == 0) {
+                results.put(invoice.getId(), BulkApprovalResponse.Result.ALREADY_APPROVED);
+                continue;
+            }
+            for (InvoiceItem item : invoice.getItems()) {
+                long stockItemId = stockItemIds.computeIfAbsent(
+                        item.getItemName().toLowerCase(Locale.ROOT), key -> stockService.resolveItemId(item.getItemName()));
+                deltas.addTo(stockItemId, item.getQuantity());
+            }
+            leadSeconds += analyticsService.leadSeconds(claimCreatedAt(invoice), invoice.getCreatedAt(), now);
+            approved++;
+            approvedIds.add(invoice.getId());
+            pdfCache.put(invoice.getId(), now, toPdfData(invoice, true));
+            results.put(invoice.getId(), BulkApprovalResponse.Result.APPROVED);
+        }
+        readModel.invoiceStatusChanged(approvedIds, InvoiceStatus.APPROVED);
+        if (!approvedIds.isEmpty()) {
+            changes.publish(ChangeTopic.INVOICE, null);
         }
-        return invoiceRepository.save(invoice);
+        stockService.applyAggregated(deltas);
+        analyticsService.recordInvoicesApproved(now.toLocalDate(), approved, leadSeconds);
+        return chunk.stream()
+                .map(id -> new BulkApprovalResponse.InvoiceOutcome(
+                        id, results.getOrDefault(id, BulkApprovalResponse.Result.NOT_FOUND)))
+                .toList();
     }
 
     @Transactional
     public void removeInvoice(Long invoiceId) {
+        int cleared = invoiceRepository.clearStockApplied(invoiceId);
         invoiceRepository.findById(invoiceId).ifPresent(invoice -> {
-            if (invoice.isStockApplied()) {
+            if (cleared == 1) {
                 stockService.revertInvoice(invoice.getItems());
+            } else if (invoice.isStockApplied()) {
+                throw new ConcurrencyFailureException("Invoice " + invoiceId + " was approved while being removed");
             }
+            analyticsService.recordInvoiceRemoved(
+                    invoice.getCreatedAt(),
+                    invoice.getSubtotal(),
+                    invoice.getTax(),
+                    invoice.getTotal(),
+                    invoice.getApprovedAt(),
+                    claimCreatedAt(invoice));
             invoiceRepository.delete(invoice);
+            pdfCache.evict(invoiceId);
+            changes.publish(ChangeTopic.INVOICE, invoiceId);
         });
     }
 
+    private LocalDateTime claimCreatedAt(Invoice invoice) {
+        return invoice.getClaim() != null ? invoice.getClaim().getCreatedAt() : null;
+    }
+
     public PageResponse<InvoiceResponse> list(int page, int size) {
-        Page<Invoice> invoices = invoiceRepository.findAll(PageRequest.of(page, size));
-        List<InvoiceResponse> content = invoices.stream().map(this::toResponse).toList();
-        return new PageResponse<>(content, invoices.getTotalElements(), invoices.getTotalPages(), page, size);
+        return shards.scatterPage(
+                page,
+                size,
+                Sort.by(Sort.Direction.DESC, "createdAt", "id"),
+                Comparator.comparing(InvoiceResponse::createdAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                        .thenComparing(InvoiceResponse::id, Comparator.reverseOrder()),
+                pageable -> invoiceRepository.findAll(pageable).map(this::toResponse));
+    }
+
+    public FieldSelection listFields(String fields, String view) {
+        return FieldSelection.parse(fields, view, LIST_VIEWS, LIST_FIELDS);
+    }
+
+    public PageResponse<Map<String, Object>> list(int page, int size, FieldSelection fields) {
+        Set<String> columns = new LinkedHashSet<>(List.of("id", "createdAt"));
+        for (String name : fields.names()) {
+            if (LIST_COLUMNS.containsKey(name)) {
+                columns.add(name);
+            }
+        }
+        PageResponse<Map<String, Object>> rows = shards.scatterPage(
+                page,
+                size,
+                Sort.by(Sort.Direction.DESC, "createdAt", "id"),
+                SparseFieldQuery.NEWEST_FIRST,
+                pageable -> {
+                    Page<Map<String, Object>> result = sparseQuery.page(Invoice.class, LIST_COLUMNS, columns, pageable);
+                    if (fields.includes("items")) {
+                        attachLines(result.getContent());
+                    }
+                    return result;
+                });
+        return new PageResponse<>(
+                rows.content().stream().map(fields::project).toList(),
+                rows.totalElements(),
+                rows.totalPages(),
+                rows.page(),
+                rows.size());
+    }
+
+    private void attachLines(List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<Long, List<InvoiceResponse.InvoiceRow>> lines = new HashMap<>();
+        List<Long> ids = rows.stream().map(row -> (Long) row.get("id")).toList();
+        for (Object[] line : invoiceRepository.findLineRows(ids)) {
+            lines.computeIfAbsent((Long) line[0], id -> new ArrayList<>())
+                    .add(new InvoiceResponse.InvoiceRow(
+                            (String) line[1], (Integer) line[2], (BigDecimal) line[3], (BigDecimal) line[4]));
+        }
+        for (Map<String, Object> row : rows) {
+            row.put("items", lines.getOrDefault((Long) row.get("id"), List.of()));
+        }
+    }
+
+    public String etag(Long id) {
+        InvoiceResponse cached = invoiceCache.peek(id);
+        if (cached != null) {
+            return etag(cached);
+        }
+        List<Long> versions = invoiceRepository.findVersionById(id);
+        if (versions.isEmpty()) {
+            return archive.findByInvoiceId(id)
+                    .map(archived -> ETags.of("invoice", id, archived.invoice().version()))
+                    .orElseThrow(() -> new IllegalArgumentException("Invoice not found"));
+        }
+        return ETags.of("invoice", id, versions.get(0));
+    }
+
+    public String etag(InvoiceResponse invoice) {
+        return ETags.of("invoice", invoice.id(), invoice.version());
+    }
+
+    public String listETag(int page, int size) {
+        return listETag(page, size, null);
+    }
+
+    public String listETag(int page, int size, FieldSelection fields) {
+        PageResponse<Object[]> rows = shards.scatterPage(
+                page,
+                size,
+                Sort.by(Sort.Direction.DESC, "createdAt", "id"),
+                ETags.NEWEST_FIRST,
+                invoiceRepository::findVersions);
+        return fields == null
+                ? ETags.page("invoices", rows.totalElements(), rows.content())
+                : ETags.page("invoices", rows.totalElements(), rows.content(), fields);
     }
 
     public InvoiceResponse getInvoice(Long id) {
-        return toResponse(
-                invoiceRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Invoice not found")));
+        return invoiceCache.get(id, () -> invoiceLoads.run(etag(id), () -> invoiceRepository
+                .findById(id)
+                .map(this::toResponse)
+                .or(() -> archive.findByInvoiceId(id).map(this::toResponse))
+                .orElseThrow(() -> new IllegalArgumentException("Invoice not found"))));
+    }
+
+    private InvoiceResponse toResponse(ArchivedClaim claim) {
+        ArchivedClaim.ArchivedInvoice invoice = claim.invoice();
+        return new InvoiceResponse(
+                invoice.id(),
+                invoice.invoiceNumber(),
+                claim.id(),
+                invoice.status(),
+                invoice.createdAt(),
+                invoice.approvedAt(),
+                invoice.subtotal(),
+                invoice.tax(),
+                invoice.total(),
+                invoice.stockApplied(),
+                invoice.items().stream()
+                        .map(line -> new InvoiceResponse.InvoiceRow(
+                                line.itemName(), line.quantity(), line.unitPrice(), line.lineTotal()))
+                        .toList(),
+                invoice.version());
     }
 
     public InvoiceResponse toResponse(Invoice invoice) {
@@ -126,13 +427,56 @@ public class InvoiceService {
                 invoice.getItems().stream()
                         .map(item -> new InvoiceResponse.InvoiceRow(
                                 item.getItemName(), item.getQuantity(), item.getUnitPrice(), item.getLineTotal()))
-                        .toList());
+                        .toList(),
+                invoice.getVersion());
     }
 
-    public InvoicePdfData getPdfData(Long invoiceId) {
-        Invoice invoice = invoiceRepository
-                .findById(invoiceId)
+    public InvoicePdfPayload getPdfData(Long invoiceId) {
+        List<LocalDateTime> versions = invoiceRepository.findUpdatedAtById(invoiceId);
+        if (versions.isEmpty()) {
+            return archivedPdfData(invoiceId);
+        }
+        LocalDateTime version = versions.get(0);
+        InvoicePdfPayload cached = pdfCache.get(invoiceId, version);
+        if (cached != null) {
+            return cached;
+        }
+        return pdfLoads.run(ETags.of("invoice-pdf", invoiceId, version), () -> readTransaction.execute(status -> {
+            Invoice invoice = invoiceRepository
+                    .findById(invoiceId)
+                    .orElseThrow(() -> new IllegalArgumentException("Invoice not found"));
+            boolean approved = invoice.getStatus() == InvoiceStatus.APPROVED;
+            return pdfCache.put(invoiceId, invoice.getUpdatedAt(), toPdfData(invoice, approved));
+        }));
+    }
+
+    private InvoicePdfPayload archivedPdfData(Long invoiceId) {
+        ArchivedClaim claim = archive.findByInvoiceId(invoiceId)
                 .orElseThrow(() -> new IllegalArgumentException("Invoice not found"));
+        ArchivedClaim.ArchivedInvoice invoice = claim.invoice();
+        InvoicePdfPayload cached = pdfCache.get(invoiceId, invoice.updatedAt());
+        if (cached != null) {
+            return cached;
+        }
+        List<InvoicePdfData.InvoiceLine> lines = invoice.items().stream()
+                .map(line -> new InvoicePdfData.InvoiceLine(
+                        line.itemName(), line.quantity(), line.unitPrice(), line.lineTotal()))
+                .toList();
+        return pdfCache.put(invoiceId, invoice.updatedAt(), new InvoicePdfData(
+                invoice.invoiceNumber(),
+                invoice.createdAt().toLocalDate(),
+                claim.claimantName(),
+                claim.referenceNumber(),
+                lines,
+                invoice.subtotal(),
+                invoice.tax(),
+                invoice.total(),
+                invoice.status() == InvoiceStatus.APPROVED,
+                imageAssets.headerUrl(),
+                imageAssets.footerUrl()));
+    }
+
+    private InvoicePdfData toPdfData(Invoice invoice, boolean approved) {
         List<InvoicePdfData.InvoiceLine> lines = invoice.getItems().stream()
                 .map(item -> new InvoicePdfData.InvoiceLine(
                         item.getItemName(), item.getQuantity(), item.getUnitPrice(), item.getLineTotal()))
@@ -146,8 +490,8 @@ public class InvoiceService {
                 invoice.getSubtotal(),
                 invoice.getTax(),
                 invoice.getTotal(),
-                invoice.getStatus() == InvoiceStatus.APPROVED,
-                headerImage,
-                footerImage);
+                approved,
+                imageAssets.headerUrl(),
+                imageAssets.footerUrl());
     }
 }
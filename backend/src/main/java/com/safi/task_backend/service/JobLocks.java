@@ -0,0 +1,78 @@
+package com.safi.task_backend.service;
+
+import com.safi.task_backend.config.SchedulingConfig;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+public class JobLocks {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shards;
+    private final Duration lease;
+    private final Map<String, String> held = new ConcurrentHashMap<>();
+
+    public JobLocks(
+            JdbcTemplate jdbcTemplate, ShardRouter shards, @Value("${jobs.lock.lease:PT1M}") Duration lease) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+        this.lease = lease;
+    }
+
+    public <T> Optional<T> runExclusive(String name, Supplier<T> work) {
+        String token = UUID.randomUUID().toString();
+        if (!shards.onHome(() -> acquire(name, token))) {
+            return Optional.empty();
+        }
+        held.put(name, token);
+        try {
+            return Optional.of(work.get());
+        } finally {
+            held.remove(name);
+            shards.onHome(() -> jdbcTemplate.update(
+                    "update job_locks set owner = null, locked_until = null where name = ? and owner = ?",
+                    name,
+                    token));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jobs.lock.renew-interval:PT10S}", scheduler = SchedulingConfig.LEASES)
+    public void renew() {
+        Timestamp until = Timestamp.valueOf(LocalDateTime.now().plus(lease));
+        held.forEach((name, token) -> shards.onHome(() -> jdbcTemplate.update(
+                "update job_locks set locked_until = ? where name = ? and owner = ?", until, name, token)));
+    }
+
+    private boolean acquire(String name, String token) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp until = Timestamp.valueOf(LocalDateTime.now().plus(lease));
+        int taken = jdbcTemplate.update(
+                "update job_locks set owner = ?, locked_until = ? "
+                        + "where name = ? and (owner is null or locked_until < ?)",
+                token,
+                until,
+                name,
+                now);
+        if (taken == 1) {
+            return true;
+        }
+        try {
+            jdbcTemplate.update(
+                    "insert into job_locks (name, owner, locked_until) values (?, ?, ?)", name, token, until);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.safi.task_backend.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PdfImageAssets {
+
+    public static final String URL_PREFIX = "/api/assets/images/";
+
+    private static final String INLINE_PIXEL =
+            "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR4nGMAAQAABQABDQottAAAAABJRU5ErkJggg==";
+
+    private final Map<String, byte[]> images = new ConcurrentHashMap<>();
+    private final String headerUrl;
+    private final String footerUrl;
+
+    public PdfImageAssets() {
+        this.headerUrl = URL_PREFIX + register(INLINE_PIXEL);
+        this.footerUrl = URL_PREFIX + register(INLINE_PIXEL);
+    }
+
+    public String headerUrl() {
+        return headerUrl;
+    }
+
+    public String footerUrl() {
+        return footerUrl;
+    }
+
+    public Optional<byte[]> find(String hash) {
+        return Optional.ofNullable(images.get(hash));
+    }
+
+    public Optional<byte[]> findByUrl(String url) {
+        if (url == null || !url.startsWith(URL_PREFIX)) {
+            return Optional.empty();
+        }
+        return find(url.substring(URL_PREFIX.length()));
+    }
+
+    private String register(String base64) {
+        byte[] bytes = Base64.getDecoder().decode(base64);
+        String hash = sha256(bytes);
+        images.putIfAbsent(hash, bytes);
+        return hash;
+    }
+
+    static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.safi.task_backend.service;
+
+public class PreconditionFailedException extends RuntimeException {
+
+    private final String currentETag;
+
+    public PreconditionFailedException(String currentETag) {
+        super("The resource has changed; its current ETag is " + currentETag);
+        this.currentETag = currentETag;
+    }
+
+    public String getCurrentETag() {
+        return currentETag;
+    }
+}
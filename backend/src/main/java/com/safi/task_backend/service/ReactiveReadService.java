@@ -0,0 +1,360 @@
+package com.safi.task_backend.service;
+
+import com.safi.task_backend.dto.ClaimItemDto;
+import com.safi.task_backend.dto.DashboardMetrics;
+import com.safi.task_backend.dto.ExpenseClaimResponse;
+import com.safi.task_backend.dto.InvoiceResponse;
+import com.safi.task_backend.dto.PageResponse;
+import com.safi.task_backend.dto.StockSummaryResponse;
+import com.safi.task_backend.model.enums.ClaimStatus;
+import com.safi.task_backend.model.enums.InvoiceStatus;
+import io.r2dbc.spi.Readable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "false", matchIfMissing = true)
+public class ReactiveReadService {
+
+    private static final String CLAIM_SELECT = """
+            select c.id, c.reference_number, c.claimant_name, c.description, c.status, c.total_amount,
+                   c.created_at, c.updated_at, c.tenant, c.version, inv.id as invoice_id
+            from expense_claims c left join invoices inv on inv.claim_id = c.id
+            """;
+    private static final String INVOICE_SELECT = """
+            select i.id, i.invoice_number, i.claim_id, i.status, i.created_at, i.approved_at, i.subtotal, i.tax,
+                   i.total, i.stock_applied, i.version
+            from invoices i
+            """;
+
+    private final DatabaseClient db;
+    private final ClaimWorkflow workflow;
+
+    public ReactiveReadService(DatabaseClient db, ClaimWorkflow workflow) {
+        this.db = db;
+        this.workflow = workflow;
+    }
+
+    public Mono<PageResponse<ExpenseClaimResponse>> listClaims(int page, int size) {
+        Mono<List<ExpenseClaimResponse>> content = db
+                .sql(CLAIM_SELECT + "order by c.created_at desc, c.id desc limit :limit offset :offset")
+                .bind("limit", size)
+                .bind("offset", (long) page * size)
+                .map(this::claimRow)
+                .all()
+                .collectList()
+                .flatMap(this::withClaimItems);
+        return Mono.zip(content, count("expense_claims"))
+                .map(result -> page(result.getT1(), result.getT2(), page, size));
+    }
+
+    public Mono<ExpenseClaimResponse> getClaim(Long id) {
+        return db.sql(CLAIM_SELECT + "where c.id = :id")
+                .bind("id", id)
+                .map(this::claimRow)
+                .one()
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Claim not found")))
+                .flatMap(claim -> withClaimItems(List.of(claim)))
+                .map(claims -> claims.get(0));
+    }
+
+    public Flux<ExpenseClaimResponse> streamClaims() {
+        return db.sql("""
+                        select c.id, c.reference_number, c.claimant_name, c.description, c.status, c.total_amount,
+                               c.created_at, c.updated_at, c.tenant, c.version, inv.id as invoice_id,
+                               ci.id as item_id, ci.item_name, ci.quantity, ci.unit_price
+                        from expense_claims c
+                        left join invoices inv on inv.claim_id = c.id
+                        left join claim_items ci on ci.claim_id = c.id
+                        order by c.id, ci.id
+                        """)
+                .map(row -> new Joined<>(claimRow(row), row.get("item_id", Long.class) != null ? claimItem(row) : null))
+                .all()
+                .bufferUntilChanged(joined -> joined.parent().id())
+                .map(rows -> toClaimResponse(rows.get(0).parent(), childrenOf(rows)));
+    }
+
+    public Mono<PageResponse<InvoiceResponse>> listInvoices(int page, int size) {
+        Mono<List<InvoiceResponse>> content = db
+                .sql(INVOICE_SELECT + "order by i.created_at desc, i.id desc limit :limit offset :offset")
+                .bind("limit", size)
+                .bind("offset", (long) page * size)
+                .map(this::invoiceRow)
+                .all()
+                .collectList()
+                .flatMap(this::withInvoiceItems);
+        return Mono.zip(content, count("invoices"))
+                .map(result -> page(result.getT1(), result.getT2(), page, size));
+    }
+
+    public Mono<InvoiceResponse> getInvoice(Long id) {
+        return db.sql(INVOICE_SELECT + "where i.id = :id")
+                .bind("id", id)
+                .map(this::invoiceRow)
+                .one()
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Invoice not found")))
+                .flatMap(invoice -> withInvoiceItems(List.of(invoice)))
+                .map(invoices -> invoices.get(0));
+    }
+
+    public Flux<InvoiceResponse> streamInvoices() {
+        return db.sql("""
+                        select i.id, i.invoice_number, i.claim_id, i.status, i.created_at, i.approved_at, i.subtotal,
+                               i.tax, i.total, i.stock_applied, i.version,
+                               ii.id as item_id, ii.item_name, ii.quantity, ii.unit_price, ii.line_total
+                        from invoices i left join invoice_items ii on ii.invoice_id = i.id
+                        order by i.id, ii.id
+                        """)
+                .map(row -> new Joined<>(invoiceRow(row), row.get("item_id", Long.class) != null ? invoiceItem(row) : null))
+                .all()
+                .bufferUntilChanged(joined -> joined.parent().id())
+                .map(rows -> toInvoiceResponse(rows.get(0).parent(), childrenOf(rows)));
+    }
+
+    public Flux<StockSummaryResponse> stock() {
+        LocalDateTime asOf = LocalDateTime.now();
+        return db.sql("select max(covered_through_id) as covered from stock_snapshots where covered_through <= :asOf")
+                .bind("asOf", asOf)
+                .map(row -> Optional.ofNullable(row.get("covered", Long.class)))
+                .one()
+                .flatMapMany(covered -> balances(covered.orElse(null), asOf));
+    }
+
+    public Mono<DashboardMetrics> dashboard() {
+        return db.sql("""
+                        select count(*) as total_claims,
+                               coalesce(sum(case when status in ('%s', '%s') then 0 else 1 end), 0) as pending_claims,
+                               coalesce(sum(total_amount), 0) as total_value,
+                               coalesce(sum(case when invoice_status = '%s' then 1 else 0 end), 0) as awaiting,
+                               coalesce(sum(case when invoice_status = '%s' then 1 else 0 end), 0) as approved,
+                               (select count(*) from stock_summary) as stock_tracked
+                        from claim_read_model
+                        """.formatted(
+                                ClaimStatus.APPROVED.name(), ClaimStatus.INVOICED.name(),
+                                InvoiceStatus.DRAFT.name(), InvoiceStatus.APPROVED.name()))
+                .map(row -> {
+                    long awaiting = number(row, "awaiting");
+                    long approved = number(row, "approved");
+                    long invoiceTotal = awaiting + approved;
+                    return new DashboardMetrics(
+                            number(row, "total_claims"),
+                            number(row, "pending_claims"),
+                            row.get("total_value", BigDecimal.class),
+                            awaiting,
+                            invoiceTotal == 0 ? 0 : (int) Math.round((approved * 100.0) / invoiceTotal),
+                            number(row, "stock_tracked"));
+                })
+                .one();
+    }
+
+    private Flux<StockSummaryResponse> balances(Long covered, LocalDateTime asOf) {
+        String snapshotJoin = covered == null
+                ? ""
+                : "left join stock_snapshots snap on snap.stock_item_id = s.id and snap.covered_through_id = :covered";
+        DatabaseClient.GenericExecuteSpec spec = db.sql("""
+                        select s.id, s.item_name, %s as snapshot_quantity, tail.quantity as tail_quantity
+                        from stock_summary s
+                        %s
+                        left join (select stock_item_id, sum(quantity) as quantity from stock_movements
+                                   where %s created_at <= :asOf group by stock_item_id) tail
+                               on tail.stock_item_id = s.id
+                        order by s.id
+                        """.formatted(
+                                covered == null ? "null" : "snap.quantity",
+                                snapshotJoin,
+                                covered == null ? "" : "id > :covered and"))
+                .bind("asOf", asOf);
+        if (covered != null) {
+            spec = spec.bind("covered", covered);
+        }
+        return spec.map(row -> Map.entry(
+                        row.get("snapshot_quantity") != null || row.get("tail_quantity") != null,
+                        new StockSummaryResponse(
+                                row.get("id", Long.class),
+                                row.get("item_name", String.class),
+                                number(row, "snapshot_quantity") + number(row, "tail_quantity"))))
+                .all()
+                .filter(Map.Entry::getKey)
+                .map(Map.Entry::getValue);
+    }
+
+    private Mono<List<ExpenseClaimResponse>> withClaimItems(List<ClaimRow> claims) {
+        return attachChildren(
+                claims,
+                ClaimRow::id,
+                "select id as item_id, claim_id as parent_id, item_name, quantity, unit_price from claim_items "
+                        + "where claim_id in (:ids) order by id",
+                this::claimItem,
+                this::toClaimResponse);
+    }
+
+    private Mono<List<InvoiceResponse>> withInvoiceItems(List<InvoiceRow> invoices) {
+        return attachChildren(
+                invoices,
+                InvoiceRow::id,
+                "select id as item_id, invoice_id as parent_id, item_name, quantity, unit_price, line_total "
+                        + "from invoice_items where invoice_id in (:ids) order by id",
+                this::invoiceItem,
+                this::toInvoiceResponse);
+    }
+
+    private <P, C, R> Mono<List<R>> attachChildren(
+            List<P> parents,
+            Function<P, Long> idOf,
+            String sql,
+            Function<Readable, C> childMapper,
+            BiFunction<P, List<C>, R> assemble) {
+        if (parents.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        List<Long> ids = parents.stream().map(idOf).toList();
+        return db.sql(sql)
+                .bind("ids", ids)
+                .map(row -> Map.entry(row.get("parent_id", Long.class), childMapper.apply(row)))
+                .all()
+                .collectMultimap(Map.Entry::getKey, Map.Entry::getValue)
+                .map(byParent -> parents.stream()
+                        .map(parent -> assemble.apply(parent, list(byParent.get(idOf.apply(parent)))))
+                        .toList());
+    }
+
+    private ClaimRow claimRow(Readable row) {
+        return new ClaimRow(
+                row.get("id", Long.class),
+                row.get("reference_number", String.class),
+                row.get("claimant_name", String.class),
+                row.get("description", String.class),
+                ClaimStatus.lookup(row.get("status", String.class)),
+                row.get("total_amount", BigDecimal.class),
+                row.get("created_at", LocalDateTime.class),
+                row.get("updated_at", LocalDateTime.class),
+                row.get("tenant", String.class),
+                row.get("version", Long.class),
+                row.get("invoice_id", Long.class));
+    }
+
+    private ClaimItemDto claimItem(Readable row) {
+        return new ClaimItemDto(
+                row.get("item_id", Long.class),
+                row.get("item_name", String.class),
+                row.get("quantity", Integer.class),
+                row.get("unit_price", BigDecimal.class));
+    }
+
+    private ExpenseClaimResponse toClaimResponse(ClaimRow claim, List<ClaimItemDto> items) {
+        return new ExpenseClaimResponse(
+                claim.id(),
+                claim.referenceNumber(),
+                claim.claimantName(),
+                claim.description(),
+                claim.status(),
+                claim.totalAmount(),
+                claim.createdAt(),
+                claim.updatedAt(),
+                items,
+                workflow.allowedTargets(claim.tenant(), claim.status()),
+                claim.invoiceId(),
+                claim.tenant(),
+                claim.version());
+    }
+
+    private InvoiceRow invoiceRow(Readable row) {
+        return new InvoiceRow(
+                row.get("id", Long.class),
+                row.get("invoice_number", String.class),
+                row.get("claim_id", Long.class),
+                InvoiceStatus.valueOf(row.get("status", String.class)),
+                row.get("created_at", LocalDateTime.class),
+                row.get("approved_at", LocalDateTime.class),
+                row.get("subtotal", BigDecimal.class),
+                row.get("tax", BigDecimal.class),
+                row.get("total", BigDecimal.class),
+                Boolean.TRUE.equals(row.get("stock_applied", Boolean.class)),
+                row.get("version", Long.class));
+    }
+
+    private InvoiceResponse.InvoiceRow invoiceItem(Readable row) {
+        return new InvoiceResponse.InvoiceRow(
+                row.get("item_name", String.class),
+                row.get("quantity", Integer.class),
+                row.get("unit_price", BigDecimal.class),
+                row.get("line_total", BigDecimal.class));
+    }
+
+    private InvoiceResponse toInvoiceResponse(InvoiceRow invoice, List<InvoiceResponse.InvoiceRow> items) {
+        return new InvoiceResponse(
+                invoice.id(),
+                invoice.invoiceNumber(),
+                invoice.claimId(),
+                invoice.status(),
+                invoice.createdAt(),
+                invoice.approvedAt(),
+                invoice.subtotal(),
+                invoice.tax(),
+                invoice.total(),
+                invoice.stockApplied(),
+                items,
+                invoice.version());
+    }
+
+    private Mono<Long> count(String table) {
+        return db.sql("select count(*) as total from " + table).map(row -> number(row, "total")).one();
+    }
+
+    private static <T> PageResponse<T> page(List<T> content, long total, int page, int size) {
+        return new PageResponse<>(content, total, size == 0 ? 0 : (int) Math.ceil((double) total / size), page, size);
+    }
+
+    private static <P, C> List<C> childrenOf(List<Joined<P, C>> rows) {
+        return rows.stream().map(Joined::child).filter(Objects::nonNull).toList();
+    }
+
+    private static <C> List<C> list(Collection<C> values) {
+        return values == null ? List.of() : List.copyOf(values);
+    }
+
+    private static long number(Readable row, String column) {
+        Object value = row.get(column);
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    private record Joined<P, C>(P parent, C child) {}
+
+    private record ClaimRow(
+            Long id,
+            String referenceNumber,
+            String claimantName,
+            String description,
+            ClaimStatus status,
+            BigDecimal totalAmount,
+            LocalDateTime createdAt,
+            LocalDateTime updatedAt,
+            String tenant,
+            Long version,
+            Long invoiceId) {}
+
+    private record InvoiceRow(
+            Long id,
+            String invoiceNumber,
+            Long claimId,
+            InvoiceStatus status,
+            LocalDateTime createdAt,
+            LocalDateTime approvedAt,
+            BigDecimal subtotal,
+            BigDecimal tax,
+            BigDecimal total,
+            boolean stockApplied,
+            Long version) {}
+}
@@ -0,0 +1,128 @@
+package com.safi.task_backend.service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RenderedPdfCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RenderedPdfCache.class);
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Map<String, Long> sizes = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    public RenderedPdfCache(
+            @Value("${invoice.pdf.render-cache.dir:./data/pdf-cache}") String directory,
+            @Value("${invoice.pdf.render-cache.max-bytes:268435456}") long maxBytes) {
+        this.directory = Path.of(directory);
+        this.maxBytes = maxBytes;
+    }
+
+    @PostConstruct
+    public void index() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.toList();
+        }
+        files.stream()
+                .filter(file -> file.getFileName().toString().endsWith(".tmp"))
+                .forEach(this::delete);
+        files.stream()
+                .filter(file -> file.getFileName().toString().endsWith(".pdf"))
+                .sorted(Comparator.comparing(this::lastModified))
+                .forEach(file -> add(file.getFileName().toString(), size(file)));
+    }
+
+    public Optional<byte[]> get(Long invoiceId, String etag) {
+        String name = name(invoiceId, etag);
+        synchronized (sizes) {
+            if (sizes.get(name) == null) {
+                return Optional.empty();
+            }
+        }
+        try {
+            return Optional.of(Files.readAllBytes(directory.resolve(name)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read cached invoice PDF " + name, e);
+        }
+    }
+
+    public void put(Long invoiceId, String etag, byte[] pdf) {
+        String name = name(invoiceId, etag);
+        try {
+            Path temp = Files.createTempFile(directory, name, ".tmp");
+            Files.write(temp, pdf);
+            Files.move(temp, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not cache rendered invoice PDF {}", name, e);
+            return;
+        }
+        add(name, pdf.length);
+    }
+
+    private void add(String name, long size) {
+        synchronized (sizes) {
+            Long previous = sizes.put(name, size);
+            totalBytes += size - (previous != null ? previous : 0);
+            Iterator<Map.Entry<String, Long>> eldest = sizes.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                if (entry.getKey().equals(name)) {
+                    continue;
+                }
+                totalBytes -= entry.getValue();
+                eldest.remove();
+                delete(directory.resolve(entry.getKey()));
+            }
+        }
+    }
+
+    private String name(Long invoiceId, String etag) {
+        return invoiceId + "-" + etag + ".pdf";
+    }
+
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete cached invoice PDF {}", file, e);
+        }
+    }
+
+    private long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
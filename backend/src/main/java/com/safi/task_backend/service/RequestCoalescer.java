@@ -0,0 +1,28 @@
+package com.safi.task_backend.service;
+
+import com.safi.task_backend.util.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RequestCoalescer {
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <K, V> SingleFlight<K, V> flight(String name) {
+        SingleFlight<K, V> flight = new SingleFlight<>();
+        FunctionCounter.builder("coalescing.requests", flight, SingleFlight::getLeaders)
+                .tag("name", name).tag("role", "leader").register(meterRegistry);
+        FunctionCounter.builder("coalescing.requests", flight, SingleFlight::getFollowers)
+                .tag("name", name).tag("role", "follower").register(meterRegistry);
+        Gauge.builder("coalescing.ratio", flight, SingleFlight::getCoalescedRatio)
+                .tag("name", name).register(meterRegistry);
+        return flight;
+    }
+}
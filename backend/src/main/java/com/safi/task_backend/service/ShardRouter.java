@@ -0,0 +1,181 @@
+package com.safi.task_backend.service;
+
+import com.safi.task_backend.config.ShardingProperties;
+import com.safi.task_backend.dto.PageResponse;
+import com.safi.task_backend.util.ShardContext;
+import com.safi.task_backend.util.ShardKeys;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class ShardRouter {
+
+    private static final ThreadLocal<Boolean> WORKER = ThreadLocal.withInitial(() -> false);
+
+    private final int shardCount;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final ExecutorService executor;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public ShardRouter(ShardingProperties properties, PlatformTransactionManager transactionManager) {
+        this.shardCount = properties.shardCount();
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+        if (shardCount > 1) {
+            AtomicInteger threads = new AtomicInteger();
+            int poolSize = properties.scatterThreads() > 0 ? properties.scatterThreads() : shardCount * 2;
+            this.executor = Executors.newFixedThreadPool(poolSize, task -> {
+                Thread thread = new Thread(() -> {
+                    WORKER.set(true);
+                    task.run();
+                }, "shard-scatter-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int shardOf(long id) {
+        int shard = ShardKeys.shardOf(id);
+        if (shard >= shardCount) {
+            throw new IllegalArgumentException("No shard holds id " + id);
+        }
+        return shard;
+    }
+
+    public int shardForNewClaim(String idempotencyKey) {
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            return Math.floorMod(idempotencyKey.hashCode(), shardCount);
+        }
+        return Math.floorMod(nextShard.getAndIncrement(), shardCount);
+    }
+
+    public <T> List<T> scatter(Supplier<T> work) {
+        return allShards(work, readTransaction);
+    }
+
+    public <T> List<T> forEachShard(Supplier<T> work) {
+        return allShards(work, writeTransaction);
+    }
+
+    public <T> Map<Integer, T> onShards(Map<Integer, Supplier<T>> work) {
+        Map<Integer, T> results = new LinkedHashMap<>();
+        if (!isSharded()) {
+            work.forEach((shard, supplier) -> results.put(shard, supplier.get()));
+            return results;
+        }
+        if (WORKER.get()) {
+            // already on the pool; queueing behind ourselves could starve it
+            work.forEach((shard, supplier) -> results.put(shard, withShard(shard, supplier)));
+            return results;
+        }
+        Map<Integer, CompletableFuture<T>> futures = new LinkedHashMap<>();
+        work.forEach((shard, supplier) -> futures.put(
+                shard, CompletableFuture.supplyAsync(() -> withShard(shard, supplier), executor)));
+        futures.forEach((shard, future) -> results.put(shard, join(future)));
+        return results;
+    }
+
+    public <T> PageResponse<T> scatterPage(
+            int page, int size, Sort mergeSort, Comparator<T> mergeOrder, Function<Pageable, Page<T>> query) {
+        if (!isSharded()) {
+            Page<T> result = query.apply(PageRequest.of(page, size, mergeSort));
+            return new PageResponse<>(result.getContent(), result.getTotalElements(), result.getTotalPages(), page, size);
+        }
+        Pageable window = PageRequest.of(0, (page + 1) * size, mergeSort);
+        List<Page<T>> pages = scatter(() -> query.apply(window));
+        long total = 0;
+        List<T> merged = new ArrayList<>();
+        for (Page<T> shardPage : pages) {
+            total += shardPage.getTotalElements();
+            merged.addAll(shardPage.getContent());
+        }
+        List<T> content = merged.stream()
+                .sorted(mergeOrder)
+                .skip((long) page * size)
+                .limit(size)
+                .toList();
+        return new PageResponse<>(content, total, (int) ((total + size - 1) / size), page, size);
+    }
+
+    public <T> T onHome(Supplier<T> work) {
+        if (!isSharded() || ShardContext.isHome()) {
+            return work.get();
+        }
+        Supplier<T> homeWork = () -> withShard(ShardContext.HOME_SHARD, () -> writeTransaction.execute(status -> work.get()));
+        return WORKER.get() ? homeWork.get() : join(CompletableFuture.supplyAsync(homeWork, executor));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private <T> List<T> allShards(Supplier<T> work, TransactionTemplate transaction) {
+        if (!isSharded()) {
+            return Collections.singletonList(work.get());
+        }
+        Map<Integer, Supplier<T>> perShard = new LinkedHashMap<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            perShard.put(shard, () -> transaction.execute(status -> work.get()));
+        }
+        return new ArrayList<>(onShards(perShard).values());
+    }
+
+    private <T> T withShard(int shard, Supplier<T> work) {
+        Integer previous = ShardContext.current();
+        ShardContext.set(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
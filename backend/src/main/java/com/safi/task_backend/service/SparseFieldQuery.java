@@ -0,0 +1,74 @@
+package com.safi.task_backend.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+@Service
+public class SparseFieldQuery {
+
+    public static final Comparator<Map<String, Object>> NEWEST_FIRST = Comparator
+            .comparing((Map<String, Object> row) -> (LocalDateTime) row.get("createdAt"),
+                    Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(row -> (Long) row.get("id"), Comparator.reverseOrder());
+
+    @FunctionalInterface
+    public interface Column<E> {
+        Expression<?> select(Root<E> root);
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public <E> Page<Map<String, Object>> page(
+            Class<E> entity, Map<String, Column<E>> columns, Collection<String> names, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<E> root = query.from(entity);
+        List<Selection<?>> selections = new ArrayList<>(names.size());
+        for (String name : names) {
+            selections.add(columns.get(name).select(root).alias(name));
+        }
+        query.multiselect(selections);
+        List<Order> order = new ArrayList<>();
+        for (Sort.Order sort : pageable.getSort()) {
+            Expression<?> property = root.get(sort.getProperty());
+            order.add(sort.isAscending() ? builder.asc(property) : builder.desc(property));
+        }
+        query.orderBy(order);
+        List<Tuple> tuples = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new HashMap<>();
+            for (TupleElement<?> element : tuple.getElements()) {
+                row.put(element.getAlias(), tuple.get(element));
+            }
+            rows.add(row);
+        }
+        CriteriaQuery<Long> count = builder.createQuery(Long.class);
+        count.select(builder.count(count.from(entity)));
+        return new PageImpl<>(rows, pageable, entityManager.createQuery(count).getSingleResult());
+    }
+}
@@ -0,0 +1,460 @@
+package com.safi.task_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safi.task_backend.dto.StatusHistoryResponse;
+import com.safi.task_backend.model.ColdStatusHistory;
+import com.safi.task_backend.model.ExpenseClaim;
+import com.safi.task_backend.model.StatusHistory;
+import com.safi.task_backend.model.enums.ClaimStatus;
+import com.safi.task_backend.repository.ColdStatusHistoryRepository;
+import com.safi.task_backend.repository.StatusHistoryRepository;
+import com.safi.task_backend.service.mapper.ClaimSnapshot;
+import com.safi.task_backend.util.AppendOnlyJournal;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class StatusHistoryWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(StatusHistoryWriter.class);
+    private static final String INSERT_SQL = "insert into status_history "
+            + "(claim_id, from_status, to_status, comment, created_at, snapshot, journal_id) values (?, ?, ?, ?, ?, ?, ?)";
+
+    private final StatusHistoryRepository historyRepository;
+    private final ColdStatusHistoryRepository coldHistoryRepository;
+    private final ObjectMapper objectMapper;
+    private final ShardRouter shards;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate flushTransaction;
+    private final boolean writeBehind;
+    private final int batchSize;
+    private final BlockingQueue<Entry> queue;
+    private final Path journalFile;
+    private final ReadWriteLock journalLock = new ReentrantReadWriteLock();
+    private final AtomicLong unstored = new AtomicLong();
+    private final Map<Long, List<Entry>> pendingByClaim = new ConcurrentHashMap<>();
+    private final List<Entry> retry = new ArrayList<>();
+    private AppendOnlyJournal journal;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public StatusHistoryWriter(
+            StatusHistoryRepository historyRepository,
+            ColdStatusHistoryRepository coldHistoryRepository,
+            ObjectMapper objectMapper,
+            ShardRouter shards,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${history.write-behind.enabled:false}") boolean writeBehind,
+            @Value("${history.write-behind.queue-capacity:10000}") int queueCapacity,
+            @Value("${history.write-behind.batch-size:200}") int batchSize,
+            @Value("${history.write-behind.journal-dir:./data/history-journal}") String journalDir) {
+        this.historyRepository = historyRepository;
+        this.coldHistoryRepository = coldHistoryRepository;
+        this.objectMapper = objectMapper;
+        this.shards = shards;
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.writeBehind = writeBehind;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.journalFile = Path.of(journalDir, "status-history.journal");
+    }
+
+    public void record(ExpenseClaim claim, ClaimStatus from, ClaimStatus to, String comment) {
+        String snapshot;
+        try {
+            snapshot = objectMapper.writeValueAsString(ClaimSnapshot.fromClaim(claim));
+        } catch (JsonProcessingException e) {
+            snapshot = "{}";
+        }
+        if (!writeBehind) {
+            StatusHistory history = new StatusHistory();
+            history.setClaim(claim);
+            history.setFromStatus(from);
+            history.setToStatus(to);
+            history.setComment(comment);
+            history.setCreatedAt(LocalDateTime.now());
+            history.setSnapshot(snapshot);
+            historyRepository.save(history);
+            return;
+        }
+        Entry entry = new Entry(UUID.randomUUID().toString(), claim.getId(), claim.getVersion(), from, to, comment,
+                LocalDateTime.now(), snapshot, false);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionEntries pending = transactionEntries();
+            pending.entries().add(entry);
+            pending.claims().add(claim);
+        } else {
+            journal(List.of(entry));
+            enqueue(List.of(entry));
+        }
+    }
+
+    public Optional<ClaimSnapshot> latestSnapshot(Long claimId, ClaimStatus status) {
+        Optional<Entry> pending = pendingFor(claimId).stream()
+                .filter(entry -> entry.toStatus() == status)
+                .max(Comparator.comparing(Entry::createdAt));
+        Optional<String> snapshot = pending.map(Entry::snapshot);
+        if (snapshot.isEmpty()) {
+            snapshot = historyRepository
+                    .findTopByClaimIdAndToStatusOrderByCreatedAtDescIdDesc(claimId, status)
+                    .map(StatusHistory::getSnapshot);
+        }
+        return snapshot.map(json -> {
+            try {
+                return objectMapper.readValue(json, ClaimSnapshot.class);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not restore snapshot", e);
+            }
+        });
+    }
+
+    public List<StatusHistoryResponse> history(Long claimId) {
+        List<StatusHistory> stored = historyRepository.findByClaimIdOrderByCreatedAtAsc(claimId);
+        List<ColdStatusHistory> cold = coldHistoryRepository.findByClaimIdOrderByCreatedAtAsc(claimId);
+        List<StatusHistoryResponse> entries = new ArrayList<>(stored.size() + cold.size());
+        Set<String> seen = new HashSet<>();
+        Set<Long> storedIds = new HashSet<>();
+        for (StatusHistory entry : stored) {
+            if (entry.getJournalId() != null) {
+                seen.add(entry.getJournalId());
+            }
+            storedIds.add(entry.getId());
+            entries.add(new StatusHistoryResponse(
+                    entry.getId(), entry.getFromStatus(), entry.getToStatus(), entry.getComment(), entry.getCreatedAt()));
+        }
+        for (ColdStatusHistory entry : cold) {
+            if (storedIds.add(entry.getId())) {
+                if (entry.getJournalId() != null) {
+                    seen.add(entry.getJournalId());
+                }
+                entries.add(new StatusHistoryResponse(
+                        entry.getId(), entry.getFromStatus(), entry.getToStatus(), entry.getComment(),
+                        entry.getCreatedAt()));
+            }
+        }
+        List<Entry> pending = pendingFor(claimId);
+        if (pending.isEmpty() && cold.isEmpty()) {
+            return entries;
+        }
+        for (Entry entry : pending) {
+            if (seen.add(entry.journalId())) {
+                entries.add(new StatusHistoryResponse(
+                        null, entry.fromStatus(), entry.toStatus(), entry.comment(), entry.createdAt()));
+            }
+        }
+        entries.sort(Comparator.comparing(StatusHistoryResponse::createdAt)
+                .thenComparing(StatusHistoryResponse::id, Comparator.nullsLast(Comparator.naturalOrder())));
+        return entries;
+    }
+
+    @Scheduled(fixedDelayString = "${history.write-behind.flush-interval:PT0.2S}")
+    public void flush() {
+        if (!writeBehind) {
+            return;
+        }
+        synchronized (retry) {
+            List<Entry> batch = new ArrayList<>(retry);
+            retry.clear();
+            queue.drainTo(batch, Math.max(0, batchSize - batch.size()));
+            while (!batch.isEmpty()) {
+                List<Entry> failed = insert(batch);
+                unstored.addAndGet(failed.size() - batch.size());
+                retry.addAll(failed);
+                if (!retry.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>();
+                queue.drainTo(batch, batchSize);
+            }
+            journalLock.writeLock().lock();
+            try {
+                if (unstored.get() == 0 && journal.size() > 0) {
+                    journal.truncate();
+                }
+            } finally {
+                journalLock.writeLock().unlock();
+            }
+        }
+    }
+
+    @PostConstruct
+    public void replayJournal() {
+        if (!writeBehind) {
+            return;
+        }
+        journal = new AppendOnlyJournal(journalFile);
+        List<Entry> journaled = new ArrayList<>();
+        Set<String> aborted = new HashSet<>();
+        for (String line : journal.readAll()) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                Entry entry = objectMapper.readValue(line, Entry.class);
+                if (entry.aborted()) {
+                    aborted.add(entry.journalId());
+                } else {
+                    journaled.add(entry);
+                }
+            } catch (JsonProcessingException e) {
+                // a torn tail from a crash mid-append; that transaction never reached its commit
+                log.warn("Skipping unreadable status history journal line");
+            }
+        }
+        // a crash between the append and the commit leaves no abort record, so an entry is replayed only if its
+        // claim reached the version the transaction would have committed
+        Map<Long, Long> versions = claimVersions(journaled);
+        List<Entry> replayed = journaled.stream()
+                .filter(entry -> !aborted.contains(entry.journalId()) && committed(entry, versions.get(entry.claimId())))
+                .toList();
+        replayed.forEach(this::addPending);
+        for (int from = 0; from < replayed.size(); from += batchSize) {
+            List<Entry> failed = insert(replayed.subList(from, Math.min(replayed.size(), from + batchSize)));
+            if (!failed.isEmpty()) {
+                throw new IllegalStateException("Could not replay the status history journal " + journalFile);
+            }
+        }
+        if (!journaled.isEmpty()) {
+            log.info("Replayed {} status history entries from {}", replayed.size(), journalFile);
+            journal.truncate();
+        }
+    }
+
+    @PreDestroy
+    public void drain() throws IOException {
+        if (!writeBehind) {
+            return;
+        }
+        flush();
+        journal.close();
+    }
+
+    private TransactionEntries transactionEntries() {
+        TransactionEntries bound = (TransactionEntries) TransactionSynchronizationManager.getResource(this);
+        if (bound != null) {
+            return bound;
+        }
+        TransactionEntries created = new TransactionEntries(new ArrayList<>(), new ArrayList<>());
+        List<Entry> entries = created.entries();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean journaled;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // flushed first so each entry carries the claim version this commit writes
+                entityManager.flush();
+                for (int i = 0; i < entries.size(); i++) {
+                    entries.set(i, entries.get(i).withClaimVersion(created.claims().get(i).getVersion()));
+                }
+                journal(entries);
+                journaled = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                enqueue(entries);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(StatusHistoryWriter.this);
+                if (journaled && status != STATUS_COMMITTED) {
+                    abort(entries);
+                }
+            }
+        });
+        return created;
+    }
+
+    private void journal(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<String> lines = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            try {
+                lines.add(objectMapper.writeValueAsString(entry));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not journal status history", e);
+            }
+        }
+        journalLock.readLock().lock();
+        try {
+            journal.append(lines);
+            unstored.addAndGet(entries.stream().filter(entry -> !entry.aborted()).count());
+        } finally {
+            journalLock.readLock().unlock();
+        }
+    }
+
+    private void abort(List<Entry> entries) {
+        List<Entry> aborts = entries.stream()
+                .map(entry -> new Entry(entry.journalId(), entry.claimId(), null, null, null, null, null, null, true))
+                .toList();
+        try {
+            journal(aborts);
+        } finally {
+            unstored.addAndGet(-entries.size());
+        }
+    }
+
+    private void enqueue(List<Entry> entries) {
+        entries.forEach(this::addPending);
+        for (Entry entry : entries) {
+            try {
+                queue.put(entry);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while queueing status history", e);
+            }
+        }
+    }
+
+    // entries journaled before versions were recorded only need their claim to exist
+    private static boolean committed(Entry entry, Long storedVersion) {
+        return storedVersion != null && (entry.claimVersion() == null || storedVersion >= entry.claimVersion());
+    }
+
+    private Map<Long, Long> claimVersions(List<Entry> entries) {
+        Map<Integer, Set<Long>> byShard = new HashMap<>();
+        for (Entry entry : entries) {
+            byShard.computeIfAbsent(shards.shardOf(entry.claimId()), shard -> new HashSet<>()).add(entry.claimId());
+        }
+        Map<Integer, Supplier<List<Map<String, Object>>>> work = new HashMap<>();
+        byShard.forEach((shard, ids) -> work.put(shard, () -> jdbcTemplate.queryForList(
+                "select id, version from expense_claims where id in ("
+                        + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")",
+                ids.toArray())));
+        Map<Long, Long> versions = new HashMap<>();
+        shards.onShards(work).values().forEach(rows -> rows.forEach(row -> versions.put(
+                ((Number) row.get("id")).longValue(), ((Number) row.get("version")).longValue())));
+        return versions;
+    }
+
+    private List<Entry> insert(List<Entry> batch) {
+        Map<Integer, List<Entry>> byShard = new LinkedHashMap<>();
+        for (Entry entry : batch) {
+            byShard.computeIfAbsent(shards.shardOf(entry.claimId()), shard -> new ArrayList<>()).add(entry);
+        }
+        Map<Integer, Supplier<List<Entry>>> work = new HashMap<>();
+        byShard.forEach((shard, entries) -> work.put(shard, () -> insertShard(entries)));
+        List<Entry> failed = new ArrayList<>();
+        shards.onShards(work).values().forEach(failed::addAll);
+        return failed;
+    }
+
+    private List<Entry> insertShard(List<Entry> entries) {
+        try {
+            flushTransaction.executeWithoutResult(status -> {
+                Set<String> stored = new HashSet<>(jdbcTemplate.queryForList(
+                        "select journal_id from status_history where journal_id in ("
+                                + String.join(", ", Collections.nCopies(entries.size(), "?")) + ")",
+                        String.class,
+                        entries.stream().map(Entry::journalId).toArray()));
+                List<Object[]> rows = entries.stream()
+                        .filter(entry -> !stored.contains(entry.journalId()))
+                        .map(entry -> new Object[] {
+                            entry.claimId(),
+                            entry.fromStatus().name(),
+                            entry.toStatus().name(),
+                            entry.comment(),
+                            Timestamp.valueOf(entry.createdAt()),
+                            entry.snapshot(),
+                            entry.journalId()
+                        })
+                        .toList();
+                if (!rows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Status history flush of {} entries failed; retrying on the next flush", entries.size(), e);
+            return entries;
+        }
+        entries.forEach(this::removePending);
+        return List.of();
+    }
+
+    private List<Entry> pendingFor(Long claimId) {
+        List<Entry> pending = new ArrayList<>(pendingByClaim.getOrDefault(claimId, List.of()));
+        if (writeBehind && TransactionSynchronizationManager.hasResource(this)) {
+            for (Entry entry : transactionEntries().entries()) {
+                if (entry.claimId() == claimId) {
+                    pending.add(entry);
+                }
+            }
+        }
+        return pending;
+    }
+
+    private void addPending(Entry entry) {
+        pendingByClaim.computeIfAbsent(entry.claimId(), id -> new CopyOnWriteArrayList<>()).add(entry);
+    }
+
+    private void removePending(Entry entry) {
+        pendingByClaim.computeIfPresent(entry.claimId(), (id, entries) -> {
+            entries.remove(entry);
+            return entries.isEmpty() ? null : entries;
+        });
+    }
+
+    private record Entry(
+            String journalId,
+            long claimId,
+            Long claimVersion,
+            ClaimStatus fromStatus,
+            ClaimStatus toStatus,
+            String comment,
+            LocalDateTime createdAt,
+            String snapshot,
+            boolean aborted) {
+
+        Entry withClaimVersion(Long version) {
+            return new Entry(journalId, claimId, version, fromStatus, toStatus, comment, createdAt, snapshot, aborted);
+        }
+    }
+
+    private record TransactionEntries(List<Entry> entries, List<ExpenseClaim> claims) {}
+}
@@ -0,0 +1,289 @@
+package com.safi.task_backend.service;
+
+import com.safi.task_backend.config.SchedulingConfig;
+import com.safi.task_backend.dto.StockReconciliationResponse;
+import com.safi.task_backend.util.ShardContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+public class StockReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReconciliationService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shards;
+    private final StockService stockService;
+    private final ClaimArchiveService archive;
+    private final JobLocks jobLocks;
+    private final Counter drifted;
+    private final Counter adjusted;
+    private final Timer duration;
+    private final boolean enabled;
+    private final boolean scheduledRepair;
+    private final int parallelism;
+    private final long chunkSize;
+    private final Duration settle;
+
+    public StockReconciliationService(
+            JdbcTemplate jdbcTemplate,
+            ShardRouter shards,
+            StockService stockService,
+            ClaimArchiveService archive,
+            JobLocks jobLocks,
+            MeterRegistry meterRegistry,
+            @Value("${stock.reconciliation.enabled:false}") boolean enabled,
+            @Value("${stock.reconciliation.repair:false}") boolean scheduledRepair,
+            @Value("${stock.reconciliation.parallelism:4}") int parallelism,
+            @Value("${stock.reconciliation.chunk-size:100000}") long chunkSize,
+            @Value("${stock.reconciliation.settle:PT10S}") Duration settle) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+        this.stockService = stockService;
+        this.archive = archive;
+        this.jobLocks = jobLocks;
+        this.drifted = Counter.builder("stock.reconciliation.drifted").register(meterRegistry);
+        this.adjusted = Counter.builder("stock.reconciliation.adjusted").register(meterRegistry);
+        this.duration = Timer.builder("stock.reconciliation.duration").register(meterRegistry);
+        this.enabled = enabled;
+        this.scheduledRepair = scheduledRepair;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.settle = settle;
+    }
+
+    @Scheduled(fixedDelayString = "${stock.reconciliation.interval:P1D}", scheduler = SchedulingConfig.JOBS)
+    public void scheduledReconcile() {
+        if (enabled) {
+            reconcile(scheduledRepair);
+        }
+    }
+
+    public StockReconciliationResponse reconcile(boolean repair) {
+        return jobLocks.runExclusive("stock-reconciliation", () -> run(repair))
+                .orElseThrow(() -> new IllegalStateException("A stock reconciliation is already running"));
+    }
+
+    private StockReconciliationResponse run(boolean repair) {
+        long started = System.nanoTime();
+        try {
+            Scan scan = scan();
+            Map<String, Long> drift = scan.drift();
+            Map<String, Long> adjustments = new HashMap<>();
+            if (repair && !drift.isEmpty()) {
+                pause(settle);
+                Scan second = scan();
+                Map<String, Long> confirmed = second.drift();
+                Map<String, StockService.Correction> corrections = new HashMap<>();
+                drift.forEach((item, difference) -> {
+                    if (difference.equals(confirmed.get(item))) {
+                        corrections.put(scan.name(item), new StockService.Correction(
+                                second.ledger().getOrDefault(item, 0L), difference));
+                    }
+                });
+                stockService.adjust(corrections).forEach((name, difference) -> adjustments.put(key(name), difference));
+            }
+            List<StockReconciliationResponse.Drift> rows = drift.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .map(entry -> new StockReconciliationResponse.Drift(
+                            scan.name(entry.getKey()),
+                            scan.expected().getOrDefault(entry.getKey(), 0L),
+                            scan.ledger().getOrDefault(entry.getKey(), 0L),
+                            entry.getValue(),
+                            adjustments.getOrDefault(entry.getKey(), 0L)))
+                    .toList();
+            drifted.increment(rows.size());
+            adjusted.increment(adjustments.size());
+            if (!rows.isEmpty()) {
+                log.warn("Stock reconciliation found drift on {} items, adjusted {}", rows.size(), adjustments.size());
+            }
+            return new StockReconciliationResponse(
+                    scan.lines(),
+                    scan.itemCount(),
+                    !adjustments.isEmpty(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                    rows);
+        } finally {
+            duration.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Scan scan() {
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "stock-reconcile-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            CompletableFuture<Map<String, Long>> archived =
+                    CompletableFuture.supplyAsync(archive::stockQuantities, pool);
+            List<CompletableFuture<List<InvoiceTotal>>> invoiceChunks = new ArrayList<>();
+            for (int shard = 0; shard < shards.shardCount(); shard++) {
+                int chunkShard = shard;
+                for (long[] range : ranges(shard, "invoice_items")) {
+                    invoiceChunks.add(CompletableFuture.supplyAsync(
+                            () -> onShard(chunkShard, () -> invoiceChunk(range)), pool));
+                }
+            }
+            List<CompletableFuture<Map<Long, Long>>> ledgerChunks = new ArrayList<>();
+            for (long[] range : ranges(ShardContext.HOME_SHARD, "stock_movements")) {
+                ledgerChunks.add(CompletableFuture.supplyAsync(
+                        () -> onShard(ShardContext.HOME_SHARD, () -> ledgerChunk(range)), pool));
+            }
+
+            Map<String, String> names = new HashMap<>();
+            Map<Long, String> keysById = new HashMap<>();
+            List<Map.Entry<Long, String>> items = onShard(ShardContext.HOME_SHARD, () -> jdbcTemplate.query(
+                    "select id, item_name from stock_summary",
+                    (rs, row) -> Map.entry(rs.getLong("id"), rs.getString("item_name"))));
+            for (Map.Entry<Long, String> item : items) {
+                keysById.put(item.getKey(), key(item.getValue()));
+                names.put(key(item.getValue()), item.getValue());
+            }
+
+            Map<String, Long> expected = new HashMap<>();
+            long lines = 0;
+            for (CompletableFuture<List<InvoiceTotal>> chunk : invoiceChunks) {
+                for (InvoiceTotal total : join(chunk)) {
+                    expected.merge(key(total.itemName()), total.quantity(), Long::sum);
+                    names.putIfAbsent(key(total.itemName()), total.itemName());
+                    lines += total.lines();
+                }
+            }
+            join(archived).forEach((item, quantity) -> {
+                expected.merge(item, quantity, Long::sum);
+                names.putIfAbsent(item, item);
+            });
+            Map<String, Long> ledger = new HashMap<>();
+            for (CompletableFuture<Map<Long, Long>> chunk : ledgerChunks) {
+                join(chunk).forEach((stockItemId, quantity) -> {
+                    String item = keysById.get(stockItemId);
+                    if (item != null) {
+                        ledger.merge(item, quantity, Long::sum);
+                    }
+                });
+            }
+            return new Scan(expected, ledger, names, lines);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<long[]> ranges(int shard, String table) {
+        Map<String, Object> bounds = onShard(
+                shard, () -> jdbcTemplate.queryForMap("select min(id) as lo, max(id) as hi from " + table));
+        Number low = (Number) bounds.get("lo");
+        Number high = (Number) bounds.get("hi");
+        List<long[]> ranges = new ArrayList<>();
+        if (low == null) {
+            return ranges;
+        }
+        for (long from = low.longValue(); from <= high.longValue(); from += chunkSize) {
+            ranges.add(new long[] {from, Math.min(from + chunkSize, high.longValue() + 1)});
+        }
+        return ranges;
+    }
+
+    private List<InvoiceTotal> invoiceChunk(long[] range) {
+        return jdbcTemplate.query(
+                "select l.item_name, sum(l.quantity), count(*) from invoice_items l "
+                        + "join invoices i on i.id = l.invoice_id "
+                        + "where l.id >= ? and l.id < ? and i.stock_applied = true group by l.item_name",
+                (rs, row) -> new InvoiceTotal(rs.getString(1), rs.getLong(2), rs.getLong(3)),
+                range[0],
+                range[1]);
+    }
+
+    private Map<Long, Long> ledgerChunk(long[] range) {
+        Map<Long, Long> totals = new HashMap<>();
+        jdbcTemplate.query(
+                "select stock_item_id, sum(quantity) from stock_movements "
+                        + "where id >= ? and id < ? and type <> 'OPENING' group by stock_item_id",
+                rs -> {
+                    totals.put(rs.getLong(1), rs.getLong(2));
+                },
+                range[0],
+                range[1]);
+        return totals;
+    }
+
+    private <T> T onShard(int shard, Supplier<T> work) {
+        return shards.onShards(Map.<Integer, Supplier<T>>of(shard, work)).get(shard);
+    }
+
+    private static String key(String itemName) {
+        return itemName.toLowerCase(Locale.ROOT);
+    }
+
+    private static void pause(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted before stock drift could be confirmed", e);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record InvoiceTotal(String itemName, long quantity, long lines) {}
+
+    private record Scan(Map<String, Long> expected, Map<String, Long> ledger, Map<String, String> names, long lines) {
+
+        Map<String, Long> drift() {
+            Set<String> items = new HashSet<>(expected.keySet());
+            items.addAll(ledger.keySet());
+            Map<String, Long> drift = new HashMap<>();
+            for (String item : items) {
+                long difference = expected.getOrDefault(item, 0L) - ledger.getOrDefault(item, 0L);
+                if (difference != 0) {
+                    drift.put(item, difference);
+                }
+            }
+            return drift;
+        }
+
+        int itemCount() {
+            Set<String> items = new HashSet<>(expected.keySet());
+            items.addAll(ledger.keySet());
+            return items.size();
+        }
+
+        String name(String item) {
+            return Objects.requireNonNullElse(names.get(item), item);
+        }
+    }
+}
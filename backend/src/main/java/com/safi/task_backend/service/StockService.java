@@ -1,49 +1,340 @@
 package com.safi.task_backend.service;
 
+import com.safi.task_backend.config.SchedulingConfig;
+import com.safi.task_backend.dto.PageResponse;
+import com.safi.task_backend.dto.StockMovementResponse;
+import com.safi.task_backend.dto.StockSummaryResponse;
 import com.safi.task_backend.model.InvoiceItem;
+import com.safi.task_backend.model.StockMovement;
+import com.safi.task_backend.model.StockSnapshot;
 import com.safi.task_backend.model.StockSummary;
+import com.safi.task_backend.model.enums.ChangeTopic;
+import com.safi.task_backend.model.enums.StockMovementType;
+import com.safi.task_backend.repository.StockMovementRepository;
+import com.safi.task_backend.repository.StockSnapshotRepository;
 import com.safi.task_backend.repository.StockSummaryRepository;
+import com.safi.task_backend.util.LocalCache;
+import com.safi.task_backend.util.LongLongHashMap;
 import jakarta.transaction.Transactional;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class StockService {
 
+    private static final String LINES = "stock-lines";
+    private static final String BULK = "stock-bulk";
+
     private final StockSummaryRepository stockSummaryRepository;
+    private final StockMovementRepository movementRepository;
+    private final StockSnapshotRepository snapshotRepository;
+    private final ShardRouter shards;
+    private final HomeOutbox homeOutbox;
+    private final JobLocks jobLocks;
+    private final TransactionTemplate itemTransaction;
+    private final TransactionTemplate jobTransaction;
+    private final Duration compactionGrace;
+    private final Duration gapTimeout;
+    private final Duration snapshotRetention;
+    private final Map<Long, LocalDateTime> ledgerGaps = new ConcurrentHashMap<>();
+    private final ChangeBus changes;
+    private final LocalCache<String, List<StockSummaryResponse>> balanceCache;
 
-    public StockService(StockSummaryRepository stockSummaryRepository) {
+    public StockService(
+            StockSummaryRepository stockSummaryRepository,
+            StockMovementRepository movementRepository,
+            StockSnapshotRepository snapshotRepository,
+            ShardRouter shards,
+            HomeOutbox homeOutbox,
+            JobLocks jobLocks,
+            PlatformTransactionManager transactionManager,
+            ChangeBus changes,
+            @Value("${stock.compaction-grace:PT1M}") Duration compactionGrace,
+            @Value("${stock.compaction-gap-timeout:PT15M}") Duration gapTimeout,
+            @Value("${stock.snapshot-retention:P30D}") Duration snapshotRetention) {
         this.stockSummaryRepository = stockSummaryRepository;
+        this.movementRepository = movementRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.shards = shards;
+        this.homeOutbox = homeOutbox;
+        this.jobLocks = jobLocks;
+        this.itemTransaction = new TransactionTemplate(transactionManager);
+        this.itemTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.jobTransaction = new TransactionTemplate(transactionManager);
+        this.compactionGrace = compactionGrace;
+        this.gapTimeout = gapTimeout;
+        this.snapshotRetention = snapshotRetention;
+        this.changes = changes;
+        this.balanceCache = changes.derivedCache(ChangeTopic.STOCK);
+        homeOutbox.register(LINES, LineWrite.class, write -> append(write.lines(), write.type()));
+        homeOutbox.register(BULK, BulkWrite.class, write -> movementRepository.saveAll(
+                write.quantities().entrySet().stream()
+                        .map(entry -> movement(entry.getKey(), null, entry.getValue(), StockMovementType.BULK_APPLY,
+                                LocalDateTime.now()))
+                        .toList()));
     }
 
     @Transactional
     public void applyInvoice(List<InvoiceItem> items) {
-        for (InvoiceItem item : items) {
-            stockSummaryRepository
-                    .findByItemNameIgnoreCase(item.getItemName())
-                    .ifPresentOrElse(
-                            summary -> {
-                                summary.setTotalQuantity(summary.getTotalQuantity() + item.getQuantity());
-                                stockSummaryRepository.save(summary);
-                            },
-                            () -> {
-                                StockSummary summary = new StockSummary();
-                                summary.setItemName(item.getItemName());
-                                summary.setTotalQuantity(item.getQuantity());
-                                stockSummaryRepository.save(summary);
-                            });
-        }
+        homeOutbox.write(LINES, new LineWrite(StockMovementType.APPLY, lines(items, 1)));
+        changes.publish(ChangeTopic.STOCK, null);
     }
 
     @Transactional
     public void revertInvoice(List<InvoiceItem> items) {
-        for (InvoiceItem item : items) {
-            stockSummaryRepository
-                    .findByItemNameIgnoreCase(item.getItemName())
-                    .ifPresent(summary -> {
-                        summary.setTotalQuantity(summary.getTotalQuantity() - item.getQuantity());
-                        stockSummaryRepository.save(summary);
-                    });
+        homeOutbox.write(LINES, new LineWrite(StockMovementType.REVERT, lines(items, -1)));
+        changes.publish(ChangeTopic.STOCK, null);
+    }
+
+    @Transactional
+    public void applyAggregated(LongLongHashMap deltas) {
+        Map<Long, Long> quantities = new HashMap<>(deltas.size());
+        deltas.forEach((stockItemId, quantity) -> {
+            if (quantity != 0) {
+                quantities.put(stockItemId, quantity);
+            }
+        });
+        homeOutbox.write(BULK, new BulkWrite(quantities));
+        changes.publish(ChangeTopic.STOCK, null);
+    }
+
+    @Transactional
+    public Map<String, Long> adjust(Map<String, Correction> corrections) {
+        if (corrections.isEmpty()) {
+            return Map.of();
+        }
+        return shards.onHome(() -> {
+            Map<String, Long> applied = new HashMap<>();
+            List<Line> lines = new ArrayList<>();
+            corrections.forEach((itemName, correction) -> {
+                long stockItemId = resolveItemId(itemName);
+                stockSummaryRepository.lockById(stockItemId);
+                if (movementRepository.sumExcluding(stockItemId, StockMovementType.OPENING) == correction.ledger()) {
+                    lines.add(new Line(itemName, null, correction.difference()));
+                    applied.put(itemName, correction.difference());
+                }
+            });
+            if (!lines.isEmpty()) {
+                append(lines, StockMovementType.ADJUSTMENT);
+                changes.publish(ChangeTopic.STOCK, null);
+            }
+            return applied;
+        });
+    }
+
+    public List<StockSummaryResponse> currentBalances() {
+        return balanceCache.get("current", () -> balancesAsOf(LocalDateTime.now()));
+    }
+
+    public List<StockSummaryResponse> balancesAsOf(LocalDateTime asOf) {
+        Long coveredId = snapshotRepository.findLatestCoveredId(asOf);
+        Map<Long, Long> balances = snapshotBalances(coveredId);
+        addRows(balances, coveredId == null
+                ? movementRepository.sumByItemUpTo(asOf)
+                : movementRepository.sumByItemAfterIdUpTo(coveredId, asOf));
+        return stockSummaryRepository.findAll().stream()
+                .filter(summary -> balances.containsKey(summary.getId()))
+                .map(summary -> new StockSummaryResponse(
+                        summary.getId(), summary.getItemName(), balances.get(summary.getId())))
+                .toList();
+    }
+
+    public PageResponse<StockMovementResponse> movements(Long stockItemId, int page, int size) {
+        Page<StockMovement> movements =
+                movementRepository.findByStockItemIdOrderByIdDesc(stockItemId, PageRequest.of(page, size));
+        List<StockMovementResponse> content = movements.stream()
+                .map(movement -> new StockMovementResponse(
+                        movement.getId(),
+                        movement.getInvoiceId(),
+                        movement.getQuantity(),
+                        movement.getType(),
+                        movement.getCreatedAt()))
+                .toList();
+        return new PageResponse<>(content, movements.getTotalElements(), movements.getTotalPages(), page, size);
+    }
+
+    @Scheduled(fixedDelayString = "${stock.compaction-interval:PT5M}", scheduler = SchedulingConfig.JOBS)
+    public void compact() {
+        jobLocks.runExclusive("stock-compaction", () -> shards.onHome(() -> {
+            jobTransaction.executeWithoutResult(status -> compactLedger());
+            return null;
+        }));
+    }
+
+    private void compactLedger() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(compactionGrace);
+        Long candidate = movementRepository.findMaxIdCreatedUpTo(cutoff);
+        Long previous = snapshotRepository.findLatestCoveredId();
+        long from = previous == null ? 0 : previous;
+        if (candidate == null || candidate <= from) {
+            return;
+        }
+        long through = committedThrough(from, candidate, now);
+        if (through <= from) {
+            return;
+        }
+        Map<Long, Long> balances = snapshotBalances(previous);
+        addRows(balances, movementRepository.sumByItemBetweenIds(from, through));
+        List<StockSnapshot> snapshots = new ArrayList<>();
+        balances.forEach((stockItemId, quantity) -> {
+            StockSnapshot snapshot = new StockSnapshot();
+            snapshot.setStockItemId(stockItemId);
+            snapshot.setQuantity(quantity);
+            snapshot.setCoveredThroughId(through);
+            snapshot.setCoveredThrough(cutoff);
+            snapshot.setCreatedAt(now);
+            snapshots.add(snapshot);
+        });
+        snapshotRepository.saveAll(snapshots);
+        snapshotRepository.deleteOlderThan(now.minus(snapshotRetention), through);
+        for (StockSummary summary : stockSummaryRepository.findAll()) {
+            long quantity = balances.getOrDefault(summary.getId(), 0L);
+            if (summary.getTotalQuantity() != quantity) {
+                summary.setTotalQuantity(quantity);
+                stockSummaryRepository.save(summary);
+            }
+        }
+    }
+
+    // A missing id may belong to a transaction that has not committed yet, so the snapshot stops below it until the
+    // gap has been seen for stock.compaction-gap-timeout; only then is it taken for a rollback. A node that takes over
+    // the lease sees every gap afresh, which only holds snapshots back longer.
+    private long committedThrough(long from, long candidate, LocalDateTime now) {
+        LocalDateTime settled = now.minus(gapTimeout);
+        long through = candidate;
+        for (Long beforeGap : movementRepository.findIdsBeforeGaps(from, candidate)) {
+            LocalDateTime seen = ledgerGaps.computeIfAbsent(beforeGap + 1, start -> now);
+            if (seen.isAfter(settled)) {
+                through = beforeGap;
+                break;
+            }
+        }
+        long covered = through;
+        ledgerGaps.keySet().removeIf(start -> start <= covered);
+        return through;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOpeningBalances() {
+        jobLocks.runExclusive("stock-opening", () -> shards.onHome(() -> {
+            jobTransaction.executeWithoutResult(status -> seedOnce());
+            return null;
+        }));
+    }
+
+    private void seedOnce() {
+        if (movementRepository.count() > 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<StockMovement> openings = stockSummaryRepository.findAll().stream()
+                .filter(summary -> summary.getTotalQuantity() != 0)
+                .map(summary -> movement(summary.getId(), null, summary.getTotalQuantity(), StockMovementType.OPENING, now))
+                .toList();
+        movementRepository.saveAll(openings);
+    }
+
+    public long resolveItemId(String itemName) {
+        return shards.onHome(() -> lookupItemId(itemName));
+    }
+
+    private long lookupItemId(String itemName) {
+        Long existing = stockSummaryRepository.findByItemNameIgnoreCase(itemName).map(StockSummary::getId).orElse(null);
+        if (existing != null) {
+            return existing;
         }
+        // new items are registered in their own transaction so a racing approval cannot roll back this one
+        try {
+            return itemTransaction.execute(status -> findOrCreateItem(itemName));
+        } catch (DataIntegrityViolationException e) {
+            return itemTransaction.execute(status -> findOrCreateItem(itemName));
+        }
+    }
+
+    private long findOrCreateItem(String itemName) {
+        return stockSummaryRepository
+                .findByItemNameIgnoreCase(itemName)
+                .map(StockSummary::getId)
+                .orElseGet(() -> {
+                    StockSummary summary = new StockSummary();
+                    summary.setItemName(itemName);
+                    long id = stockSummaryRepository.saveAndFlush(summary).getId();
+                    changes.publish(ChangeTopic.STOCK, null);
+                    return id;
+                });
     }
+
+    private List<Line> lines(List<InvoiceItem> items, int sign) {
+        return items.stream()
+                .map(item -> new Line(
+                        item.getItemName(),
+                        item.getInvoice() != null ? item.getInvoice().getId() : null,
+                        (long) sign * item.getQuantity()))
+                .toList();
+    }
+
+    private void append(List<Line> lines, StockMovementType type) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Long> itemIds = new HashMap<>();
+        List<StockMovement> movements = new ArrayList<>();
+        for (Line line : lines) {
+            long stockItemId = itemIds.computeIfAbsent(
+                    line.itemName().toLowerCase(Locale.ROOT), key -> resolveItemId(line.itemName()));
+            movements.add(movement(stockItemId, line.invoiceId(), line.quantity(), type, now));
+        }
+        movementRepository.saveAll(movements);
+    }
+
+    private StockMovement movement(
+            long stockItemId, Long invoiceId, long quantity, StockMovementType type, LocalDateTime createdAt) {
+        StockMovement movement = new StockMovement();
+        movement.setStockItemId(stockItemId);
+        movement.setInvoiceId(invoiceId);
+        movement.setQuantity(quantity);
+        movement.setType(type);
+        movement.setCreatedAt(createdAt);
+        return movement;
+    }
+
+    private Map<Long, Long> snapshotBalances(Long coveredId) {
+        Map<Long, Long> balances = new HashMap<>();
+        if (coveredId != null) {
+            for (StockSnapshot snapshot : snapshotRepository.findByCoveredThroughId(coveredId)) {
+                balances.put(snapshot.getStockItemId(), snapshot.getQuantity());
+            }
+        }
+        return balances;
+    }
+
+    private void addRows(Map<Long, Long> balances, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            balances.merge((Long) row[0], ((Number) row[1]).longValue(), Long::sum);
+        }
+    }
+
+    public record Correction(long ledger, long difference) {}
+
+    private record Line(String itemName, Long invoiceId, long quantity) {}
+
+    private record LineWrite(StockMovementType type, List<Line> lines) {}
+
+    private record BulkWrite(Map<Long, Long> quantities) {}
 }
@@ -0,0 +1,6 @@
+package com.safi.task_backend.service;
+
+import java.util.List;
+import java.util.Map;
+
+public record WorkflowDefinition(List<String> states, Map<String, List<String>> transitions) {}
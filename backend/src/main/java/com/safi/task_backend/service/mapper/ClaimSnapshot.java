@@ -12,9 +12,11 @@ public record ClaimSnapshot(String claimantName, String description, List<ItemSn
                 claim.getClaimantName(),
                 claim.getDescription(),
                 claim.getItems().stream()
-                        .map(item -> new ItemSnapshot(item.getItemName(), item.getQuantity(), item.getUnitPrice()))
+                        .map(item -> new ItemSnapshot(
+                                item.getId(), item.getItemName(), item.getQuantity(), item.getUnitPrice()))
                         .toList());
     }
 
-    public record ItemSnapshot(String itemName, Integer quantity, BigDecimal unitPrice) {}
+    // id is null in snapshots taken before item ids were recorded, and for items not yet flushed.
+    public record ItemSnapshot(Long id, String itemName, Integer quantity, BigDecimal unitPrice) {}
 }
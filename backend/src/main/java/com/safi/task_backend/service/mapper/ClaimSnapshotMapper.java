@@ -4,7 +4,11 @@ import com.safi.task_backend.model.ClaimItem;
 import com.safi.task_backend.model.ExpenseClaim;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 public final class ClaimSnapshotMapper {
 
@@ -13,22 +17,90 @@ public final class ClaimSnapshotMapper {
     public static void applySnapshot(ExpenseClaim claim, ClaimSnapshot snapshot) {
         claim.setClaimantName(snapshot.claimantName());
         claim.setDescription(snapshot.description());
-        List<ClaimItem> items = new ArrayList<>();
-        if (snapshot.items() != null) {
-            for (ClaimSnapshot.ItemSnapshot itemSnapshot : snapshot.items()) {
-                ClaimItem item = new ClaimItem();
-                item.setItemName(itemSnapshot.itemName());
-                item.setQuantity(itemSnapshot.quantity());
-                item.setUnitPrice(itemSnapshot.unitPrice());
-                item.setClaim(claim);
-                items.add(item);
+        mergeItems(claim, snapshot.items(), false);
+    }
+
+    public static void mergeItems(ExpenseClaim claim, List<ClaimSnapshot.ItemSnapshot> target, boolean strictIds) {
+        Map<Long, ClaimItem> unmatched = new LinkedHashMap<>();
+        List<ClaimItem> unsaved = new ArrayList<>();
+        for (ClaimItem item : claim.getItems()) {
+            if (item.getId() != null) {
+                unmatched.put(item.getId(), item);
+            } else {
+                unsaved.add(item);
+            }
+        }
+        List<ClaimSnapshot.ItemSnapshot> rows = target != null ? target : List.of();
+        ClaimItem[] merged = new ClaimItem[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Long id = rows.get(i).id();
+            if (id == null) {
+                continue;
+            }
+            merged[i] = unmatched.remove(id);
+            if (merged[i] == null && strictIds) {
+                throw new IllegalArgumentException("Unknown or repeated item id " + id + " for claim " + claim.getId());
+            }
+        }
+        Map<ItemKey, List<ClaimItem>> byValue = new HashMap<>();
+        for (ClaimItem item : unmatched.values()) {
+            byValue.computeIfAbsent(ItemKey.of(item), key -> new ArrayList<>()).add(item);
+        }
+        for (ClaimItem item : unsaved) {
+            byValue.computeIfAbsent(ItemKey.of(item), key -> new ArrayList<>()).add(item);
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            if (merged[i] != null) {
+                continue;
+            }
+            List<ClaimItem> candidates = byValue.get(ItemKey.of(rows.get(i)));
+            if (candidates != null && !candidates.isEmpty()) {
+                merged[i] = candidates.remove(0);
+                if (merged[i].getId() != null) {
+                    unmatched.remove(merged[i].getId());
+                }
+            } else {
+                merged[i] = new ClaimItem();
+                merged[i].setClaim(claim);
+            }
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            ClaimSnapshot.ItemSnapshot row = rows.get(i);
+            ClaimItem item = merged[i];
+            if (!Objects.equals(item.getItemName(), row.itemName())) {
+                item.setItemName(row.itemName());
+            }
+            if (!Objects.equals(item.getQuantity(), row.quantity())) {
+                item.setQuantity(row.quantity());
+            }
+            if (!sameAmount(item.getUnitPrice(), row.unitPrice())) {
+                item.setUnitPrice(row.unitPrice());
             }
         }
         claim.getItems().clear();
-        claim.getItems().addAll(items);
+        claim.getItems().addAll(List.of(merged));
         BigDecimal total = claim.getItems().stream()
                 .map(ClaimItem::getLineTotal)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
         claim.setTotalAmount(total);
     }
+
+    private static boolean sameAmount(BigDecimal current, BigDecimal next) {
+        return current == null ? next == null : next != null && current.compareTo(next) == 0;
+    }
+
+    private record ItemKey(String itemName, Integer quantity, BigDecimal unitPrice) {
+
+        static ItemKey of(ClaimItem item) {
+            return new ItemKey(item.getItemName(), item.getQuantity(), normalize(item.getUnitPrice()));
+        }
+
+        static ItemKey of(ClaimSnapshot.ItemSnapshot item) {
+            return new ItemKey(item.itemName(), item.quantity(), normalize(item.unitPrice()));
+        }
+
+        private static BigDecimal normalize(BigDecimal amount) {
+            return amount != null ? amount.stripTrailingZeros() : null;
+        }
+    }
 }
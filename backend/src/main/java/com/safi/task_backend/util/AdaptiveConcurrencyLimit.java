@@ -0,0 +1,107 @@
+package com.safi.task_backend.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class AdaptiveConcurrencyLimit {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueued;
+    private final long targetLatencyNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long lastBackoffNanos;
+    private boolean backedOff;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, int maxQueued, long targetLatencyMillis) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueued = maxQueued;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.limit = initialLimit;
+    }
+
+    public boolean tryAcquire(long maxWaitMillis) throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return true;
+            }
+            if (queued >= maxQueued || maxWaitMillis <= 0) {
+                return false;
+            }
+            queued++;
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = permitReleased.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long latencyNanos) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            if (latencyNanos > targetLatencyNanos) {
+                if (!backedOff || now - latencyNanos - lastBackoffNanos > 0) {
+                    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                    lastBackoffNanos = now;
+                    backedOff = true;
+                }
+            } else if (inFlight >= limit / 2) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            inFlight--;
+            permitReleased.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
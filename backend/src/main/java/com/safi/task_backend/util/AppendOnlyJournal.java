@@ -0,0 +1,122 @@
+package com.safi.task_backend.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class AppendOnlyJournal implements AutoCloseable {
+
+    private final Path file;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock forceLock = new ReentrantLock();
+    private final FileChannel channel;
+    private long written;
+    private volatile long forced;
+
+    public AppendOnlyJournal(Path file) {
+        this.file = file;
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            this.channel = FileChannel.open(
+                    file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open journal " + file, e);
+        }
+    }
+
+    public void append(String line) {
+        append(List.of(line));
+    }
+
+    public void append(List<String> lines) {
+        StringBuilder text = new StringBuilder();
+        lines.forEach(line -> text.append(line).append('\n'));
+        ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        long end;
+        lock.lock();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            written += buffer.limit();
+            end = written;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to journal " + file, e);
+        } finally {
+            lock.unlock();
+        }
+        awaitForced(end);
+    }
+
+    // whoever holds forceLock forces everything written so far, so the appenders queued behind it usually find
+    // their bytes already durable
+    private void awaitForced(long end) {
+        forceLock.lock();
+        try {
+            if (forced >= end) {
+                return;
+            }
+            long target;
+            lock.lock();
+            try {
+                target = written;
+            } finally {
+                lock.unlock();
+            }
+            channel.force(false);
+            forced = target;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not force journal " + file, e);
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    public List<String> readAll() {
+        lock.lock();
+        try {
+            return Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read journal " + file, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void truncate() {
+        lock.lock();
+        try {
+            channel.truncate(0);
+            channel.force(true);
+            written = 0;
+            forced = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not truncate journal " + file, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long size() {
+        lock.lock();
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not size journal " + file, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
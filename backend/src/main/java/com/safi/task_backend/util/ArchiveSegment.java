@@ -0,0 +1,187 @@
+package com.safi.task_backend.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public final class ArchiveSegment implements Closeable {
+
+    private static final int MAGIC = 0x41524331;
+    private static final long NO_SECONDARY_ID = -1;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long[] ids;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final Map<Long, Long> idsBySecondary = new HashMap<>();
+    private final Map<String, Long> idsByKey = new HashMap<>();
+
+    public record Record(long id, Long secondaryId, String key, byte[] payload) {}
+
+    private ArchiveSegment(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        ByteBuffer header = buffer.duplicate();
+        if (header.getInt() != MAGIC) {
+            channel.close();
+            throw new IOException("Not an archive segment: " + file);
+        }
+        int count = header.getInt();
+        ids = new long[count];
+        offsets = new long[count];
+        lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = header.getLong();
+            long secondaryId = header.getLong();
+            offsets[i] = header.getLong();
+            lengths[i] = header.getInt();
+            byte[] key = new byte[header.getShort()];
+            header.get(key);
+            if (secondaryId != NO_SECONDARY_ID) {
+                idsBySecondary.put(secondaryId, ids[i]);
+            }
+            if (key.length > 0) {
+                idsByKey.put(new String(key, StandardCharsets.UTF_8), ids[i]);
+            }
+        }
+    }
+
+    public static ArchiveSegment open(Path file) throws IOException {
+        return new ArchiveSegment(file);
+    }
+
+    public static void write(Path file, List<Record> records) throws IOException {
+        List<Record> sorted = records.stream().sorted(Comparator.comparingLong(Record::id)).toList();
+        byte[][] keys = new byte[sorted.size()][];
+        byte[][] payloads = new byte[sorted.size()][];
+        long indexBytes = 8;
+        for (int i = 0; i < sorted.size(); i++) {
+            keys[i] = sorted.get(i).key() == null ? new byte[0] : sorted.get(i).key().getBytes(StandardCharsets.UTF_8);
+            payloads[i] = deflate(sorted.get(i).payload());
+            indexBytes += 8 + 8 + 8 + 4 + 2 + keys[i].length;
+        }
+        ByteBuffer index = ByteBuffer.allocate(Math.toIntExact(indexBytes));
+        index.putInt(MAGIC).putInt(sorted.size());
+        long offset = indexBytes;
+        for (int i = 0; i < sorted.size(); i++) {
+            Record record = sorted.get(i);
+            index.putLong(record.id())
+                    .putLong(record.secondaryId() != null ? record.secondaryId() : NO_SECONDARY_ID)
+                    .putLong(offset)
+                    .putInt(payloads[i].length)
+                    .putShort((short) keys[i].length)
+                    .put(keys[i]);
+            offset += payloads[i].length;
+        }
+        index.flip();
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            writeFully(out, index);
+            for (byte[] payload : payloads) {
+                writeFully(out, ByteBuffer.wrap(payload));
+            }
+            out.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public Optional<byte[]> find(long id) {
+        int slot = Arrays.binarySearch(ids, id);
+        if (slot < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(inflate(buffer.slice(Math.toIntExact(offsets[slot]), lengths[slot])));
+    }
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    public Optional<Long> idForSecondary(long secondaryId) {
+        return Optional.ofNullable(idsBySecondary.get(secondaryId));
+    }
+
+    public Optional<Long> idForKey(String key) {
+        return Optional.ofNullable(idsByKey.get(key));
+    }
+
+    public long[] ids() {
+        return ids.clone();
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static byte[] deflate(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, payload.length / 4));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(ByteBuffer compressed) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.remaining() * 4);
+            byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(chunk);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated archive record");
+                }
+                out.write(chunk, 0, read);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt archive record", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            out.write(data);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.safi.task_backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import org.springframework.http.MediaType;
+
+public final class ETags {
+
+    private ETags() {}
+
+    public static String of(Object... parts) {
+        StringBuilder tag = new StringBuilder("\"");
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                tag.append('-');
+            }
+            tag.append(parts[i]);
+        }
+        return tag.append('"').toString();
+    }
+
+    // a weak tag lets the container compress the response; pages are only ever compared for If-None-Match
+    public static String weak(String tag) {
+        return "W/" + tag;
+    }
+
+    public static String forRepresentation(String tag, String accept) {
+        return acceptsCbor(accept) ? cbor(tag) : tag;
+    }
+
+    public static boolean acceptsCbor(String accept) {
+        return accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(type -> type.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR));
+    }
+
+    private static String cbor(String tag) {
+        return tag.substring(0, tag.length() - 1) + "-cbor\"";
+    }
+
+    public static final Comparator<Object[]> NEWEST_FIRST = Comparator
+            .comparing((Object[] row) -> (LocalDateTime) row[2], Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(row -> (Long) row[0], Comparator.reverseOrder());
+
+    public static String page(String prefix, long total, List<Object[]> rows, Object... extra) {
+        StringBuilder state = new StringBuilder().append(total);
+        for (Object part : extra) {
+            state.append('|').append(part);
+        }
+        for (Object[] row : rows) {
+            state.append('|').append(row[0]).append(':').append(row[1]);
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(state.toString().getBytes(StandardCharsets.UTF_8));
+            return of(prefix, HexFormat.of().formatHex(hash, 0, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static boolean matches(String ifMatch, String current) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return true;
+        }
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(current) || tag.equals(cbor(current))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,72 @@
+package com.safi.task_backend.util;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public final class FieldSelection {
+
+    public static final String FULL_VIEW = "full";
+
+    private final Set<String> names;
+
+    private FieldSelection(Set<String> names) {
+        this.names = names;
+    }
+
+    public static FieldSelection parse(
+            String fields, String view, Map<String, List<String>> views, Collection<String> available) {
+        boolean noFields = fields == null || fields.isBlank();
+        if (noFields && (view == null || view.isBlank() || view.equals(FULL_VIEW))) {
+            return null;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        if (view != null && !view.isBlank() && !view.equals(FULL_VIEW)) {
+            List<String> preset = views.get(view);
+            if (preset == null) {
+                throw new IllegalArgumentException("Unknown view: " + view);
+            }
+            names.addAll(preset);
+        }
+        if (!noFields) {
+            for (String field : fields.split(",")) {
+                String name = field.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if (!available.contains(name)) {
+                    throw new IllegalArgumentException("Unknown field: " + name);
+                }
+                names.add(name);
+            }
+        }
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("No fields selected");
+        }
+        return new FieldSelection(names);
+    }
+
+    public boolean includes(String name) {
+        return names.contains(name);
+    }
+
+    public Set<String> names() {
+        return names;
+    }
+
+    public Map<String, Object> project(Map<String, Object> row) {
+        Map<String, Object> projected = new LinkedHashMap<>();
+        for (String name : names) {
+            projected.put(name, row.get(name));
+        }
+        return projected;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", names);
+    }
+}
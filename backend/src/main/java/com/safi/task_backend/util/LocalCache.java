@@ -0,0 +1,78 @@
+package com.safi.task_backend.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+public final class LocalCache<K, V> {
+
+    private final Map<K, Entry<V>> entries;
+    private final long ttlNanos;
+    private final BooleanSupplier usable;
+    private long epoch;
+
+    public LocalCache(int maxEntries, long ttlNanos, BooleanSupplier usable) {
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.ttlNanos = ttlNanos;
+        this.usable = usable;
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        if (!usable.getAsBoolean()) {
+            return loader.get();
+        }
+        long started;
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.storedAt() < ttlNanos) {
+                return entry.value();
+            }
+            started = epoch;
+        }
+        V value = loader.get();
+        synchronized (entries) {
+            if (value != null && epoch == started && usable.getAsBoolean()) {
+                entries.put(key, new Entry<>(value, System.nanoTime()));
+            }
+        }
+        return value;
+    }
+
+    public V peek(K key) {
+        if (!usable.getAsBoolean()) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            return entry != null && System.nanoTime() - entry.storedAt() < ttlNanos ? entry.value() : null;
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            epoch++;
+            entries.remove(key);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            epoch++;
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private record Entry<V>(V value, long storedAt) {}
+}
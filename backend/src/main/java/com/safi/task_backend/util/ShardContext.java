@@ -0,0 +1,31 @@
+package com.safi.task_backend.util;
+
+public final class ShardContext {
+
+    public static final int HOME_SHARD = 0;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {}
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public static boolean isHome() {
+        Integer shard = CURRENT.get();
+        return shard == null || shard == HOME_SHARD;
+    }
+
+    public static void set(Integer shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
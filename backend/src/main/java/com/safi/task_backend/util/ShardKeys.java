@@ -0,0 +1,16 @@
+package com.safi.task_backend.util;
+
+public final class ShardKeys {
+
+    public static final int SHARD_SHIFT = 40;
+
+    private ShardKeys() {}
+
+    public static int shardOf(long id) {
+        return (int) (id >>> SHARD_SHIFT);
+    }
+
+    public static long firstId(int shard) {
+        return (long) shard << SHARD_SHIFT;
+    }
+}
@@ -0,0 +1,104 @@
+package com.safi.task_backend.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safi.task_backend.dto.ClaimItemDto;
+import com.safi.task_backend.dto.ExpenseClaimRequest;
+import com.safi.task_backend.dto.ExpenseClaimResponse;
+import com.safi.task_backend.dto.PageResponse;
+import com.safi.task_backend.service.ExpenseClaimService;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Bytes on the wire for one claim page as JSON and CBOR, with and without gzip, and the serialization CPU time per
+ * page for each encoding. Run with {@code mvn test -P contention-benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "admission.enabled=false")
+@ActiveProfiles("local-h2")
+class EncodingBenchmark {
+
+    private static final int CLAIMS = 200;
+    private static final int PAGE_SIZE = 100;
+    private static final int ROUNDS = 2_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ExpenseClaimService claimService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void jsonVersusCbor() throws Exception {
+        for (int i = 0; i < CLAIMS; i++) {
+            List<ClaimItemDto> items = List.of(
+                    new ClaimItemDto(null, "paper", 1 + i % 4, new BigDecimal("3.20")),
+                    new ClaimItemDto(null, "toner", 1, new BigDecimal("41.00")),
+                    new ClaimItemDto(null, "courier", 2, new BigDecimal("12.75")));
+            claimService.createClaim(new ExpenseClaimRequest("Bench " + i, "Encoding", items), null);
+        }
+        String path = "/api/claims?page=0&size=" + PAGE_SIZE;
+        long json = wireBytes(path, "application/json", false);
+        long jsonGzip = wireBytes(path, "application/json", true);
+        long cbor = wireBytes(path, "application/cbor", false);
+        long cborGzip = wireBytes(path, "application/cbor", true);
+        System.out.printf("wire bytes per page: json=%d json+gzip=%d cbor=%d cbor+gzip=%d%n",
+                json, jsonGzip, cbor, cborGzip);
+        assertThat(cbor).isLessThan(json);
+        assertThat(jsonGzip).isLessThan(json);
+
+        PageResponse<ExpenseClaimResponse> page = claimService.listClaims(0, PAGE_SIZE);
+        ObjectMapper cborMapper = cborConverter.getObjectMapper();
+        cpuPerPage("warm-up json", objectMapper, page);
+        cpuPerPage("warm-up cbor", cborMapper, page);
+        cpuPerPage("json", objectMapper, page);
+        cpuPerPage("cbor", cborMapper, page);
+    }
+
+    private long wireBytes(String path, String accept, boolean gzip) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", accept)
+                .GET();
+        if (gzip) {
+            request.header("Accept-Encoding", "gzip");
+        }
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Encoding").isPresent()).isEqualTo(gzip);
+        return response.body().length;
+    }
+
+    private void cpuPerPage(String label, ObjectMapper mapper, Object page) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long bytes = 0;
+        long started = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            bytes += mapper.writeValueAsBytes(page).length;
+        }
+        long cpu = threads.getCurrentThreadCpuTime() - started;
+        System.out.printf("%-13s %7.1f us cpu/page  %d bytes/page%n", label, cpu / 1e3 / ROUNDS, bytes / ROUNDS);
+    }
+}
@@ -0,0 +1,118 @@
+package com.safi.task_backend.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safi.task_backend.dto.ClaimItemDto;
+import com.safi.task_backend.dto.ExpenseClaimRequest;
+import com.safi.task_backend.service.ExpenseClaimService;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Drives the blocking and the R2DBC read endpoints side by side with far more concurrent requests than Tomcat has
+ * threads. Run with {@code mvn test -P contention-benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"admission.enabled=false", "server.tomcat.threads.max=16"})
+@ActiveProfiles("local-h2")
+class ReactiveReadBenchmark {
+
+    private static final int CLAIMS = 500;
+    private static final int IN_FLIGHT = 512;
+    private static final int REQUESTS = 20_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ExpenseClaimService claimService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void blockingVersusReactive() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < CLAIMS; i++) {
+            List<ClaimItemDto> items = List.of(
+                    new ClaimItemDto(null, "paper", 1 + i % 4, new BigDecimal("3.20")),
+                    new ClaimItemDto(null, "toner", 1, new BigDecimal("41.00")));
+            ids.add(claimService.createClaim(new ExpenseClaimRequest("Bench " + i, "Reads", items), null).id());
+        }
+        Long sample = ids.get(0);
+        JsonNode blocking = objectMapper.readTree(get("/api/claims/" + sample).body());
+        JsonNode reactive = objectMapper.readTree(get("/api/reactive/claims/" + sample).body());
+        assertThat(reactive).isEqualTo(blocking);
+
+        IntFunction<String> detail = n -> "/claims/" + ids.get(ThreadLocalRandom.current().nextInt(CLAIMS));
+        IntFunction<String> list = n -> "/claims?size=20&page=" + ThreadLocalRandom.current().nextInt(CLAIMS / 20);
+        run("warm-up", "/api", detail);
+        run("warm-up", "/api/reactive", detail);
+        run("mvc detail", "/api", detail);
+        run("r2dbc detail", "/api/reactive", detail);
+        run("mvc list", "/api", list);
+        run("r2dbc list", "/api/reactive", list);
+
+        HttpResponse<String> stream = get("/api/reactive/claims/stream");
+        assertThat(stream.body().lines().count()).isEqualTo(CLAIMS);
+    }
+
+    private void run(String label, String prefix, IntFunction<String> path) throws Exception {
+        Semaphore permits = new Semaphore(IN_FLIGHT);
+        AtomicLong failures = new AtomicLong();
+        long[] latencies = new long[REQUESTS];
+        List<CompletableFuture<?>> requests = new ArrayList<>(REQUESTS);
+        long started = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            permits.acquire();
+            int slot = i;
+            long sent = System.nanoTime();
+            requests.add(client.sendAsync(request(prefix + path.apply(i)), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencies[slot] = System.nanoTime() - sent;
+                        if (error != null || response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                        permits.release();
+                    }));
+        }
+        CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).join();
+        double seconds = (System.nanoTime() - started) / 1e9;
+        Arrays.sort(latencies);
+        System.out.printf("%-14s %8.0f req/s  p50=%5.1fms  p99=%6.1fms  failures=%d%n",
+                label, REQUESTS / seconds, latencies[REQUESTS / 2] / 1e6, latencies[REQUESTS * 99 / 100] / 1e6,
+                failures.get());
+        assertThat(failures.get()).isZero();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(request(path), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+    }
+}
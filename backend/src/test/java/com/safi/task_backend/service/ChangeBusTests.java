@@ -0,0 +1,75 @@
+package com.safi.task_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.safi.task_backend.TaskBackendApplication;
+import com.safi.task_backend.dto.ClaimItemDto;
+import com.safi.task_backend.dto.ClaimTransitionRequest;
+import com.safi.task_backend.dto.ExpenseClaimRequest;
+import com.safi.task_backend.dto.ExpenseClaimResponse;
+import com.safi.task_backend.model.enums.ClaimStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/** Two application contexts sharing one database stand in for two replicas. */
+class ChangeBusTests {
+
+    private static final String URL = "jdbc:h2:mem:change_bus;DB_CLOSE_DELAY=-1";
+
+    @Test
+    void writesOnOneNodeInvalidateTheOtherNodesCache() throws InterruptedException {
+        try (ConfigurableApplicationContext nodeA = start("node-a", "create-drop");
+                ConfigurableApplicationContext nodeB = start("node-b", "none")) {
+            ExpenseClaimService claimsA = nodeA.getBean(ExpenseClaimService.class);
+            ExpenseClaimService claimsB = nodeB.getBean(ExpenseClaimService.class);
+            DashboardService dashboardB = nodeB.getBean(DashboardService.class);
+
+            ExpenseClaimResponse claim = claimsA.createClaim(request("First"), null);
+            awaitFresh(nodeB.getBean(ChangeBus.class));
+            assertThat(claimsB.getClaim(claim.id()).status()).isEqualTo(ClaimStatus.DRAFT);
+            long totalBefore = dashboardB.getMetrics().totalClaims();
+
+            claimsA.transition(claim.id(), new ClaimTransitionRequest(ClaimStatus.SUBMITTED, null), null);
+            claimsA.createClaim(request("Second"), null);
+
+            awaitTrue(() -> claimsB.getClaim(claim.id()).status() == ClaimStatus.SUBMITTED);
+            awaitTrue(() -> dashboardB.getMetrics().totalClaims() == totalBefore + 1);
+            assertThat(nodeB.getBean(MeterRegistry.class).timer("cache.invalidation.lag").count())
+                    .isPositive();
+        }
+    }
+
+    private static ExpenseClaimRequest request(String description) {
+        return new ExpenseClaimRequest(
+                "Bus Test", description, List.of(new ClaimItemDto(null, "cables", 3, new BigDecimal("4.00"))));
+    }
+
+    private static ConfigurableApplicationContext start(String nodeId, String ddl) {
+        return new SpringApplicationBuilder(TaskBackendApplication.class)
+                .profiles("local-h2")
+                .properties(
+                        "spring.main.web-application-type=none",
+                        "spring.datasource.url=" + URL,
+                        "spring.jpa.hibernate.ddl-auto=" + ddl,
+                        "cache.invalidation.node-id=" + nodeId,
+                        "cache.invalidation.poll-interval=PT0.1S")
+                .run();
+    }
+
+    private static void awaitFresh(ChangeBus bus) throws InterruptedException {
+        awaitTrue(bus::isFresh);
+    }
+
+    private static void awaitTrue(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.get()) {
+            assertThat(System.nanoTime()).as("condition not met within 10s").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
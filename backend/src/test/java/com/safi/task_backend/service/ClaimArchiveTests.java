@@ -0,0 +1,80 @@
+package com.safi.task_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.safi.task_backend.dto.ClaimItemDto;
+import com.safi.task_backend.dto.ClaimTransitionRequest;
+import com.safi.task_backend.dto.ExpenseClaimResponse;
+import com.safi.task_backend.dto.InvoiceResponse;
+import com.safi.task_backend.model.enums.ClaimStatus;
+import com.safi.task_backend.repository.ExpenseClaimRepository;
+import com.safi.task_backend.repository.InvoiceRepository;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+@SpringBootTest(properties = {"archive.enabled=true", "archive.min-age=PT0S", "archive.interval=PT24H"})
+@ActiveProfiles("local-h2")
+class ClaimArchiveTests {
+
+    @Autowired
+    private ExpenseClaimService claimService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private ClaimArchiveService archiveService;
+
+    @Autowired
+    private ExpenseClaimRepository claimRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @DynamicPropertySource
+    static void archiveDirectory(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("claim-archive").toString();
+        registry.add("archive.dir", () -> directory);
+    }
+
+    @Test
+    void archivedClaimsReadThroughAndRestoreOnBackwardTransition() {
+        ExpenseClaimResponse invoiced = ClaimFixtures.invoicedClaim(claimService, List.of(
+                new ClaimItemDto(null, "cable", 3, new BigDecimal("4.50")),
+                new ClaimItemDto(null, "adapter", 1, new BigDecimal("19.99"))));
+        invoiceService.approve(invoiced.invoiceId());
+        ExpenseClaimResponse before = claimService.getClaim(invoiced.id());
+        InvoiceResponse invoiceBefore = invoiceService.getInvoice(invoiced.invoiceId());
+        int historyBefore = claimService.history(invoiced.id()).size();
+
+        archiveService.archive();
+
+        assertThat(claimRepository.existsById(invoiced.id())).isFalse();
+        assertThat(invoiceRepository.existsById(invoiced.invoiceId())).isFalse();
+        assertThat(claimService.getClaim(invoiced.id())).isEqualTo(before);
+        assertThat(claimService.etag(invoiced.id())).isEqualTo(claimService.etag(before));
+        assertThat(invoiceService.getInvoice(invoiced.invoiceId())).isEqualTo(invoiceBefore);
+        assertThat(claimService.history(invoiced.id())).hasSize(historyBefore);
+        assertThat(archiveService.findByReference(before.referenceNumber())).isPresent();
+
+        ExpenseClaimResponse restored = claimService.transition(
+                invoiced.id(), new ClaimTransitionRequest(ClaimStatus.APPROVED, "reopen"), null);
+
+        assertThat(restored.status()).isEqualTo(ClaimStatus.APPROVED);
+        assertThat(restored.items()).isEqualTo(before.items());
+        assertThat(claimRepository.existsById(invoiced.id())).isTrue();
+        assertThat(claimService.history(invoiced.id())).hasSize(historyBefore + 1);
+        assertThat(archiveService.find(invoiced.id())).isEmpty();
+        assertThatThrownBy(() -> invoiceService.getInvoice(invoiced.invoiceId()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
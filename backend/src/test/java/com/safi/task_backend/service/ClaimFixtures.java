@@ -0,0 +1,28 @@
+package com.safi.task_backend.service;
+
+import com.safi.task_backend.dto.ClaimItemDto;
+import com.safi.task_backend.dto.ClaimTransitionRequest;
+import com.safi.task_backend.dto.ExpenseClaimRequest;
+import com.safi.task_backend.dto.ExpenseClaimResponse;
+import com.safi.task_backend.model.enums.ClaimStatus;
+import java.math.BigDecimal;
+import java.util.List;
+
+final class ClaimFixtures {
+
+    private ClaimFixtures() {}
+
+    static ExpenseClaimResponse invoicedClaim(ExpenseClaimService claimService, String itemName, int quantity) {
+        return invoicedClaim(claimService, List.of(new ClaimItemDto(null, itemName, quantity, new BigDecimal("1.00"))));
+    }
+
+    static ExpenseClaimResponse invoicedClaim(ExpenseClaimService claimService, List<ClaimItemDto> items) {
+        ExpenseClaimResponse claim = claimService.createClaim(
+                new ExpenseClaimRequest("Fixture Claimant", "Invoiced claim", items), null);
+        for (ClaimStatus status : List.of(
+                ClaimStatus.SUBMITTED, ClaimStatus.UNDER_REVIEW, ClaimStatus.APPROVED, ClaimStatus.INVOICED)) {
+            claim = claimService.transition(claim.id(), new ClaimTransitionRequest(status, null), null);
+        }
+        return claim;
+    }
+}
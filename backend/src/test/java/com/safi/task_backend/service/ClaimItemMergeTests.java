@@ -0,0 +1,137 @@
+package com.safi.task_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.safi.task_backend.dto.ClaimItemDto;
+import com.safi.task_backend.dto.ClaimTransitionRequest;
+import com.safi.task_backend.dto.ExpenseClaimRequest;
+import com.safi.task_backend.dto.ExpenseClaimResponse;
+import com.safi.task_backend.model.ClaimItem;
+import com.safi.task_backend.model.enums.ClaimStatus;
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("local-h2")
+class ClaimItemMergeTests {
+
+    private static final int LINES = 300;
+
+    @Autowired
+    private ExpenseClaimService claimService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void enableStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void editingOneLineUpdatesOnlyThatRow() {
+        ExpenseClaimResponse created = createClaim();
+        List<ClaimItemDto> items = new ArrayList<>(created.items());
+        ClaimItemDto edited = items.get(42);
+        items.set(42, new ClaimItemDto(edited.id(), edited.itemName(), edited.quantity() + 1, edited.unitPrice()));
+
+        statistics.clear();
+        ExpenseClaimResponse updated = claimService.updateClaim(created.id(), request(items), null);
+
+        assertThat(itemStatistics().getInsertCount()).isZero();
+        assertThat(itemStatistics().getDeleteCount()).isZero();
+        assertThat(itemStatistics().getUpdateCount()).isEqualTo(1);
+        assertThat(ids(updated)).isEqualTo(ids(created));
+        assertThat(updated.items().get(42).quantity()).isEqualTo(edited.quantity() + 1);
+    }
+
+    @Test
+    void addingAndRemovingLinesTouchesOnlyTheDifference() {
+        ExpenseClaimResponse created = createClaim();
+        List<ClaimItemDto> items = new ArrayList<>(created.items());
+        items.remove(7);
+        items.add(new ClaimItemDto(null, "added", 1, new BigDecimal("9.99")));
+
+        statistics.clear();
+        ExpenseClaimResponse updated = claimService.updateClaim(created.id(), request(items), null);
+
+        assertThat(itemStatistics().getInsertCount()).isEqualTo(1);
+        assertThat(itemStatistics().getDeleteCount()).isEqualTo(1);
+        assertThat(itemStatistics().getUpdateCount()).isZero();
+        assertThat(updated.items()).hasSize(LINES);
+        assertThat(ids(updated).subList(0, LINES - 1)).isEqualTo(ids(created).stream()
+                .filter(id -> !id.equals(created.items().get(7).id()))
+                .toList());
+    }
+
+    @Test
+    void unchangedResubmitIssuesNoItemStatements() {
+        ExpenseClaimResponse created = createClaim();
+
+        statistics.clear();
+        claimService.updateClaim(created.id(), request(created.items()), null);
+
+        assertThat(itemStatistics().getInsertCount()).isZero();
+        assertThat(itemStatistics().getDeleteCount()).isZero();
+        assertThat(itemStatistics().getUpdateCount()).isZero();
+    }
+
+    @Test
+    void backwardRestoreKeepsItemRows() {
+        ExpenseClaimResponse created = createClaim();
+        claimService.transition(created.id(), new ClaimTransitionRequest(ClaimStatus.SUBMITTED, "submit"), null);
+
+        statistics.clear();
+        ExpenseClaimResponse restored =
+                claimService.transition(created.id(), new ClaimTransitionRequest(ClaimStatus.DRAFT, "back"), null);
+
+        assertThat(itemStatistics().getInsertCount()).isZero();
+        assertThat(itemStatistics().getDeleteCount()).isZero();
+        assertThat(itemStatistics().getUpdateCount()).isZero();
+        assertThat(ids(restored)).isEqualTo(ids(created));
+    }
+
+    @Test
+    void foreignItemIdsAreRejected() {
+        ExpenseClaimResponse first = createClaim();
+        ExpenseClaimResponse second = createClaim();
+        List<ClaimItemDto> items = new ArrayList<>(first.items());
+        items.set(0, second.items().get(0));
+
+        assertThatThrownBy(() -> claimService.updateClaim(first.id(), request(items), null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ExpenseClaimResponse createClaim() {
+        List<ClaimItemDto> items = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            items.add(new ClaimItemDto(null, "line-" + i, 1 + i % 5, new BigDecimal("2.50")));
+        }
+        return claimService.createClaim(request(items), null);
+    }
+
+    private ExpenseClaimRequest request(List<ClaimItemDto> items) {
+        return new ExpenseClaimRequest("Merge Test", "Diff-based item updates", items);
+    }
+
+    private EntityStatistics itemStatistics() {
+        return statistics.getEntityStatistics(ClaimItem.class.getName());
+    }
+
+    private List<Long> ids(ExpenseClaimResponse claim) {
+        return claim.items().stream().map(ClaimItemDto::id).toList();
+    }
+}
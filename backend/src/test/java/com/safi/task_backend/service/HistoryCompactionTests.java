@@ -0,0 +1,72 @@
+package com.safi.task_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.safi.task_backend.dto.ClaimItemDto;
+import com.safi.task_backend.dto.ClaimTransitionRequest;
+import com.safi.task_backend.dto.ExpenseClaimRequest;
+import com.safi.task_backend.dto.ExpenseClaimResponse;
+import com.safi.task_backend.dto.HistoryCompactionResponse;
+import com.safi.task_backend.dto.StatusHistoryResponse;
+import com.safi.task_backend.model.enums.ClaimStatus;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(properties = {"history.compaction.enabled=false", "history.compaction.hot-age=PT0S"})
+@ActiveProfiles("local-h2")
+class HistoryCompactionTests {
+
+    @Autowired
+    private ExpenseClaimService claimService;
+
+    @Autowired
+    private HistoryCompactionService compactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compactionKeepsHistoryAndRestorableSnapshots() {
+        ExpenseClaimResponse claim = claimService.createClaim(request("staples", 2), null);
+        claim = claimService.updateClaim(claim.id(), request("binders", 5), null);
+        for (ClaimStatus status : List.of(
+                ClaimStatus.SUBMITTED, ClaimStatus.DRAFT, ClaimStatus.SUBMITTED, ClaimStatus.UNDER_REVIEW)) {
+            claim = claimService.transition(claim.id(), new ClaimTransitionRequest(status, null), null);
+        }
+        List<StatusHistoryResponse> before = claimService.history(claim.id());
+        long distinctTargets = before.stream().map(StatusHistoryResponse::toStatus).distinct().count();
+
+        HistoryCompactionResponse report = compactionService.compact();
+
+        assertThat(report.snapshotsStripped()).isGreaterThanOrEqualTo(before.size() - distinctTargets);
+        assertThat(report.snapshotBytesReclaimed()).isPositive();
+        assertThat(report.rowsMoved()).isGreaterThanOrEqualTo(before.size() - distinctTargets);
+        assertThat(claimService.history(claim.id())).isEqualTo(before);
+        assertThat(count("select count(*) from status_history where claim_id = ? and snapshot is not null", claim.id()))
+                .isEqualTo(distinctTargets);
+        assertThat(count("select count(*) from status_history_cold where claim_id = ?", claim.id()))
+                .isEqualTo(before.size() - distinctTargets);
+
+        ExpenseClaimResponse reopened = claimService.transition(
+                claim.id(), new ClaimTransitionRequest(ClaimStatus.SUBMITTED, "back"), null);
+
+        assertThat(reopened.items()).extracting(ClaimItemDto::itemName).containsExactly("binders");
+        assertThat(claimService.history(claim.id()).subList(0, before.size())).isEqualTo(before);
+    }
+
+    private long count(String sql, Long claimId) {
+        return jdbcTemplate.queryForObject(sql, Long.class, claimId);
+    }
+
+    private static ExpenseClaimRequest request(String itemName, int quantity) {
+        return new ExpenseClaimRequest(
+                "Compaction Test",
+                "Superseded snapshots",
+                List.of(new ClaimItemDto(null, itemName, quantity, new BigDecimal("2.40"))));
+    }
+}
@@ -0,0 +1,59 @@
+package com.safi.task_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.safi.task_backend.model.IdempotencyRecord;
+import com.safi.task_backend.repository.IdempotencyRecordRepository;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(properties = "idempotency.in-flight-timeout=PT0.3S")
+@ActiveProfiles("local-h2")
+class IdempotencyLeaseTests {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Test
+    void completedKeysReplayAndOnlyExpiredLeasesAreTakenOver() {
+        AtomicInteger runs = new AtomicInteger();
+        String first = idempotencyService.execute("test", "replay", "body", String.class,
+                () -> "run-" + runs.incrementAndGet());
+        String again = idempotencyService.execute("test", "replay", "body", String.class,
+                () -> "run-" + runs.incrementAndGet());
+        assertThat(again).isEqualTo(first);
+        assertThat(runs).hasValue(1);
+        IdempotencyRecord completed = recordRepository.findByIdempotencyKey("test:replay").orElseThrow();
+        assertThat(completed.getLeaseToken()).isNull();
+
+        pending("test:held", LocalDateTime.now().plusMinutes(5));
+        assertThatThrownBy(() -> idempotencyService.execute("test", "held", "body", String.class, () -> "never"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("still in progress");
+
+        pending("test:dead", LocalDateTime.now().minusSeconds(1));
+        assertThat(idempotencyService.execute("test", "dead", "body", String.class, () -> "taken over"))
+                .isEqualTo("taken over");
+        assertThat(recordRepository.findByIdempotencyKey("test:dead").orElseThrow().isCompleted()).isTrue();
+    }
+
+    private void pending(String key, LocalDateTime leaseExpiresAt) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey(key);
+        // every call here sends the same body, so the completed key supplies a matching hash
+        record.setRequestHash(recordRepository.findByIdempotencyKey("test:replay").orElseThrow().getRequestHash());
+        record.setCreatedAt(LocalDateTime.now());
+        record.setExpiresAt(LocalDateTime.now().plusHours(1));
+        record.setLeaseToken("other-node");
+        record.setLeaseExpiresAt(leaseExpiresAt);
+        recordRepository.save(record);
+    }
+}
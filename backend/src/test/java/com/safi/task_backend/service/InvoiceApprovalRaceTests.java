@@ -0,0 +1,95 @@
+package com.safi.task_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.safi.task_backend.dto.StockSummaryResponse;
+import com.safi.task_backend.model.Invoice;
+import com.safi.task_backend.model.enums.InvoiceStatus;
+import com.safi.task_backend.repository.InvoiceRepository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+@ActiveProfiles("local-h2")
+class InvoiceApprovalRaceTests {
+
+    private static final int INVOICES = 100;
+    private static final int OPERATIONS = 5000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private ExpenseClaimService claimService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void parallelApprovalsAndRemovalsKeepStockExact() throws Exception {
+        String itemName = "race-item-" + System.nanoTime();
+        stockService.resolveItemId(itemName);
+        List<Long> invoiceIds = new ArrayList<>();
+        for (int i = 0; i < INVOICES; i++) {
+            invoiceIds.add(ClaimFixtures.invoicedClaim(claimService, itemName, 1 + i % 7).invoiceId());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> operations = new ArrayList<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            operations.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Long id = invoiceIds.get(random.nextInt(INVOICES));
+                try {
+                    if (random.nextInt(8) == 0) {
+                        invoiceService.removeInvoice(id);
+                    } else {
+                        invoiceService.approve(id);
+                    }
+                } catch (IllegalArgumentException | ConcurrencyFailureException e) {
+                    // removed already, or rolled back after losing a race; either way nothing was applied
+                }
+            }));
+        }
+        for (Future<?> operation : operations) {
+            operation.get();
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        long expected = transactionTemplate.execute(status -> {
+            long applied = 0;
+            for (Invoice invoice : invoiceRepository.findAllById(invoiceIds)) {
+                assertThat(invoice.isStockApplied()).isEqualTo(invoice.getStatus() == InvoiceStatus.APPROVED);
+                if (invoice.isStockApplied()) {
+                    applied += invoice.getItems().stream().mapToLong(item -> item.getQuantity()).sum();
+                }
+            }
+            return applied;
+        });
+        long balance = stockService.balancesAsOf(LocalDateTime.now()).stream()
+                .filter(summary -> summary.itemName().equalsIgnoreCase(itemName))
+                .mapToLong(StockSummaryResponse::totalQuantity)
+                .sum();
+        assertThat(balance).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,73 @@
+package com.safi.task_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.safi.task_backend.dto.ClaimItemDto;
+import com.safi.task_backend.dto.ExpenseClaimResponse;
+import com.safi.task_backend.dto.InvoiceResponse;
+import com.safi.task_backend.dto.PageResponse;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("local-h2")
+class SparseListTests {
+
+    @Autowired
+    private ExpenseClaimService claimService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Test
+    void sparseClaimPagesMatchTheFullRepresentation() {
+        ExpenseClaimResponse claim = ClaimFixtures.invoicedClaim(claimService, List.of(
+                new ClaimItemDto(null, "pens", 4, new BigDecimal("1.25")),
+                new ClaimItemDto(null, "folders", 2, new BigDecimal("3.10"))));
+
+        // one page holding every claim, so the comparison does not depend on row order
+        PageResponse<ExpenseClaimResponse> full = claimService.listClaims(0, 10_000);
+        PageResponse<Map<String, Object>> sparse =
+                claimService.listClaims(0, 10_000, claimService.listFields("items,allowedTransitions", "summary"));
+
+        assertThat(sparse.totalElements()).isEqualTo(full.totalElements());
+        Map<Long, ExpenseClaimResponse> byId = full.content().stream()
+                .collect(Collectors.toMap(ExpenseClaimResponse::id, Function.identity()));
+        assertThat(sparse.content()).hasSameSizeAs(full.content());
+        for (Map<String, Object> row : sparse.content()) {
+            ExpenseClaimResponse expected = byId.get((Long) row.get("id"));
+            assertThat(row).containsOnlyKeys(
+                    "id", "referenceNumber", "claimantName", "status", "totalAmount", "createdAt", "invoiceId",
+                    "items", "allowedTransitions");
+            assertThat(row.get("referenceNumber")).isEqualTo(expected.referenceNumber());
+            assertThat(row.get("invoiceId")).isEqualTo(expected.invoiceId());
+            assertThat(row.get("items")).isEqualTo(expected.items());
+            assertThat(row.get("allowedTransitions")).isEqualTo(expected.allowedTransitions());
+        }
+
+        Long invoiceId = claim.invoiceId();
+        InvoiceResponse invoice = invoiceService.getInvoice(invoiceId);
+        Map<String, Object> invoiceRow = invoiceService
+                .list(0, 10_000, invoiceService.listFields("id,invoiceNumber,total,items", null))
+                .content()
+                .stream()
+                .filter(row -> invoiceId.equals(row.get("id")))
+                .findFirst()
+                .orElseThrow();
+        assertThat(invoiceRow).containsOnlyKeys("id", "invoiceNumber", "total", "items");
+        assertThat(invoiceRow.get("items")).isEqualTo(invoice.items());
+        assertThat((BigDecimal) invoiceRow.get("total")).isEqualByComparingTo(invoice.total());
+
+        assertThatThrownBy(() -> claimService.listFields("password", null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(claimService.listFields(null, "full")).isNull();
+    }
+}
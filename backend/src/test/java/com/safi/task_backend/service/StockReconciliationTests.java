@@ -0,0 +1,76 @@
+package com.safi.task_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.safi.task_backend.dto.StockReconciliationResponse;
+import com.safi.task_backend.dto.StockSummaryResponse;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(properties = {"stock.reconciliation.chunk-size=2", "stock.reconciliation.settle=PT0S"})
+@ActiveProfiles("local-h2")
+class StockReconciliationTests {
+
+    @Autowired
+    private ExpenseClaimService claimService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockReconciliationService reconciliationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void driftIsReportedThenRepairedWithAnAdjustment() {
+        String itemName = "reconcile-item-" + System.nanoTime();
+        for (int quantity = 1; quantity <= 3; quantity++) {
+            invoiceService.approve(ClaimFixtures.invoicedClaim(claimService, itemName, quantity).invoiceId());
+        }
+        assertThat(drift(reconciliationService.reconcile(false), itemName)).isEmpty();
+
+        long stockItemId = stockService.resolveItemId(itemName);
+        jdbcTemplate.update(
+                "insert into stock_movements (stock_item_id, quantity, type, created_at) values (?, ?, 'APPLY', ?)",
+                stockItemId,
+                5,
+                LocalDateTime.now());
+
+        StockReconciliationResponse report = reconciliationService.reconcile(false);
+        assertThat(drift(report, itemName)).hasValueSatisfying(drift -> {
+            assertThat(drift.expected()).isEqualTo(6);
+            assertThat(drift.ledger()).isEqualTo(11);
+            assertThat(drift.difference()).isEqualTo(-5);
+            assertThat(drift.adjusted()).isZero();
+        });
+        assertThat(report.invoiceLinesScanned()).isGreaterThanOrEqualTo(3);
+        assertThat(balance(itemName)).isEqualTo(11);
+
+        StockReconciliationResponse repair = reconciliationService.reconcile(true);
+        assertThat(repair.repaired()).isTrue();
+        assertThat(drift(repair, itemName)).hasValueSatisfying(drift -> assertThat(drift.adjusted()).isEqualTo(-5));
+        assertThat(balance(itemName)).isEqualTo(6);
+        assertThat(drift(reconciliationService.reconcile(false), itemName)).isEmpty();
+    }
+
+    private Optional<StockReconciliationResponse.Drift> drift(StockReconciliationResponse report, String itemName) {
+        return report.drift().stream().filter(drift -> drift.itemName().equalsIgnoreCase(itemName)).findFirst();
+    }
+
+    private long balance(String itemName) {
+        return stockService.balancesAsOf(LocalDateTime.now()).stream()
+                .filter(summary -> summary.itemName().equalsIgnoreCase(itemName))
+                .mapToLong(StockSummaryResponse::totalQuantity)
+                .sum();
+    }
+}
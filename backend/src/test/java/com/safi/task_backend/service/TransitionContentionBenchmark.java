@@ -0,0 +1,122 @@
+package com.safi.task_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.safi.task_backend.dto.ClaimItemDto;
+import com.safi.task_backend.dto.ClaimTransitionRequest;
+import com.safi.task_backend.dto.ExpenseClaimRequest;
+import com.safi.task_backend.dto.ExpenseClaimResponse;
+import com.safi.task_backend.dto.StatusHistoryResponse;
+import com.safi.task_backend.model.enums.ClaimStatus;
+import com.safi.task_backend.repository.InvoiceRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * 64 threads drive random allowed transitions over a handful of claims, so most transitions race with another one
+ * on the same row. Run with {@code mvn test -P contention-benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("local-h2")
+class TransitionContentionBenchmark {
+
+    private static final int THREADS = 64;
+    private static final int CLAIMS = 8;
+    private static final Duration RUN_TIME = Duration.ofSeconds(20);
+
+    @Autowired
+    private ExpenseClaimService claimService;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void overlappingTransitions() throws InterruptedException {
+        List<Long> claimIds = new ArrayList<>();
+        Map<Long, Integer> initialHistory = new ConcurrentHashMap<>();
+        for (int i = 0; i < CLAIMS; i++) {
+            ExpenseClaimResponse claim = claimService.createClaim(request(i), null);
+            claimIds.add(claim.id());
+            initialHistory.put(claim.id(), claimService.history(claim.id()).size());
+        }
+        Map<Long, AtomicLong> committed = new ConcurrentHashMap<>();
+        claimIds.forEach(id -> committed.put(id, new AtomicLong()));
+        AtomicLong conflicts = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        double retriesBefore = meterRegistry.counter("claims.transition.retries").count();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + RUN_TIME.toNanos();
+        for (int t = 0; t < THREADS; t++) {
+            pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    Long id = claimIds.get(random.nextInt(CLAIMS));
+                    List<ClaimStatus> allowed = new ArrayList<>(claimService.getClaim(id).allowedTransitions());
+                    ClaimStatus target = allowed.get(random.nextInt(allowed.size()));
+                    try {
+                        claimService.transition(id, new ClaimTransitionRequest(target, "bench"), null);
+                        committed.get(id).incrementAndGet();
+                    } catch (ConcurrencyFailureException e) {
+                        conflicts.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        // the status moved between the read and the transition
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(RUN_TIME.toSeconds() + 60, TimeUnit.SECONDS)).isTrue();
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long total = committed.values().stream().mapToLong(AtomicLong::get).sum();
+        double retries = meterRegistry.counter("claims.transition.retries").count() - retriesBefore;
+        System.out.printf(
+                "threads=%d claims=%d committed=%d (%.0f/s) conflicts=%d rejected=%d retries=%.0f%n",
+                THREADS, CLAIMS, total, total / seconds, conflicts.get(), rejected.get(), retries);
+
+        assertThat(total).isPositive();
+        for (Long id : claimIds) {
+            ExpenseClaimResponse claim = claimService.getClaim(id);
+            List<StatusHistoryResponse> history = claimService.history(id);
+            assertThat(history).hasSize(initialHistory.get(id) + (int) committed.get(id).get());
+            assertThat(history.get(history.size() - 1).toStatus()).isEqualTo(claim.status());
+            assertThat(invoiceRepository.findByClaimId(id).isPresent())
+                    .isEqualTo(claim.status() == ClaimStatus.INVOICED);
+        }
+    }
+
+    private ExpenseClaimRequest request(int index) {
+        return new ExpenseClaimRequest(
+                "Bench " + index,
+                "Transition contention",
+                List.of(new ClaimItemDto(null, "item", 1, new BigDecimal("10.00"))));
+    }
+}
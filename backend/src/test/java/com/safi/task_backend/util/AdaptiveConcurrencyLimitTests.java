@@ -0,0 +1,27 @@
+package com.safi.task_backend.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTests {
+
+    @Test
+    void aBurstOfSlowCompletionsBacksOffOnce() throws InterruptedException {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 40, 10, 1);
+        for (int i = 0; i < 10; i++) {
+            assertThat(limit.tryAcquire(0)).isTrue();
+        }
+        long slow = TimeUnit.SECONDS.toNanos(1);
+        for (int i = 0; i < 9; i++) {
+            limit.release(slow);
+        }
+        assertThat(limit.getLimit()).isEqualTo(9);
+
+        Thread.sleep(20);
+        limit.release(TimeUnit.MILLISECONDS.toNanos(5));
+        assertThat(limit.getLimit()).isEqualTo(8);
+        assertThat(limit.getInFlight()).isZero();
+    }
+}
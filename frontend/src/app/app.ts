@@ -260,8 +260,8 @@ export class App implements OnInit {
   }
 
   private buildPdf(data: InvoicePdfData): void {
-    const headerImage = headerUrl || (data.headerImage ? `data:image/png;base64,${data.headerImage}` : undefined);
-    const footerImage = footerUrl || (data.footerImage ? `data:image/png;base64,${data.footerImage}` : undefined);
+    const headerImage = headerUrl || (data.headerImageUrl ? this.api.resolveUrl(data.headerImageUrl) : undefined);
+    const footerImage = footerUrl || (data.footerImageUrl ? this.api.resolveUrl(data.footerImageUrl) : undefined);
     const tableBody = [
       ['Item', 'Qty', 'Price', 'Line Total'],
       ...data.items.map(item => [
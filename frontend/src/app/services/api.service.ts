@@ -72,8 +72,8 @@ export interface InvoicePdfData {
   tax: number;
   total: number;
   managerApproved: boolean;
-  headerImage: string;
-  footerImage: string;
+  headerImageUrl: string;
+  footerImageUrl: string;
 }
 
 export interface StockSummary {
@@ -131,6 +131,10 @@ export class ApiService {
     return this.http.get<InvoicePdfData>(`${this.baseUrl}/invoices/${invoiceId}/pdf-data`);
   }
 
+  resolveUrl(path: string): string {
+    return new URL(path, this.baseUrl).toString();
+  }
+
   getStock(): Observable<StockSummary[]> {
     return this.http.get<StockSummary[]>(`${this.baseUrl}/stock`);
   }